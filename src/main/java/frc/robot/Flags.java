@@ -129,6 +129,30 @@ public final class Flags {
         public static final boolean ENABLE_LIMEY_APRILTAGS_ODOMETRY_FUSING = true;
 
         public static final boolean ENABLE_DYNAMIC_PATHFINDING = true;
+
+        /**
+         * Whether dynamic pathfinding should use the any-angle Lazy Theta* planner instead of AD*.
+         */
+        public static final boolean USE_ANY_ANGLE_PATHFINDING = false;
+
+        /**
+         * Whether dynamic pathfinding should use the hierarchical HPA* planner instead of AD*, which keeps planning fast on finer navgrids.
+         * Ignored if {@link #USE_ANY_ANGLE_PATHFINDING} is set.
+         */
+        public static final boolean USE_HIERARCHICAL_PATHFINDING = false;
+
+        /**
+         * Whether dynamic pathfinding should use the kinodynamic state lattice planner, whose paths start from the robot's velocity and arrive
+         * tangent to the pre-planned path at its speed, so no joining path is needed. Ignored if either of the above is set.
+         */
+        public static final boolean USE_STATE_LATTICE_PATHFINDING = false;
+
+        /**
+         * Whether pathfinding paths should be timed from the robot's own speed, current and grip limits at the battery's voltage,
+         * instead of the fixed pathfinding constraints.
+         * Off until it's been tested on the robot, since it drives noticeably faster than the fixed constraints.
+         */
+        public static final boolean USE_PATHFINDING_RETIMING = false;
     }
     
     private Flags() {}
@@ -0,0 +1,20 @@
+package frc.robot.commands.drive.pathfinding;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * A moving obstacle such as another robot: where its bounding box is right now, and how fast it's moving
+ *
+ * @param corner1  One corner of the bounding box, on the field
+ * @param corner2  The opposite corner of the bounding box
+ * @param velocity The obstacle's field-relative velocity, in meters per second
+ */
+public record ObstacleTrack(Translation2d corner1, Translation2d corner2, Translation2d velocity) {
+	/**
+	 * @return The track's bounding box some time from now, assuming it keeps moving at the same velocity
+	 */
+	public ObstacleTrack predict(double seconds) {
+		Translation2d offset = velocity.times(seconds);
+		return new ObstacleTrack(corner1.plus(offset), corner2.plus(offset), velocity);
+	}
+}
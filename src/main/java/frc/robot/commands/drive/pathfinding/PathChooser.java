@@ -15,4 +15,15 @@ public interface PathChooser {
 	 * @return The best path to follow
 	 */
 	PathPlannerPath bestPath(Pose2d currentPose, List<PathPlannerPath> paths);
+
+	/**
+	 * Picks the best path ahead of time, off of the robot thread, so it can afford to take longer than {@link #bestPath}.
+	 * The same notes apply.
+	 * @param currentPose The robot's current field pose
+	 * @param paths List of paths to choose from
+	 * @return The best path to follow
+	 */
+	default PathPlannerPath bestPathInBackground(Pose2d currentPose, List<PathPlannerPath> paths) {
+		return bestPath(currentPose, paths);
+	}
 }
@@ -0,0 +1,187 @@
+package frc.robot.commands.drive.pathfinding;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An arc-length table over the points of a path or trajectory, so finding where it is some distance before the end takes
+ * O(log n), and finding where the robot is along it only checks the segments within a window instead of every point.
+ * The points keep the rotations of the poses they came from.
+ * <p>
+ * The index is immutable once built, so it can be built on a background thread and queried from the robot thread.
+ */
+public final class PathIndex {
+	private final double[] xs;
+	private final double[] ys;
+	private final Rotation2d[] rotations;
+	/**
+	 * The distance along the path from the first point to each point
+	 */
+	private final double[] distances;
+
+	/**
+	 * @param poses The poses of the path, in order
+	 */
+	public PathIndex(List<Pose2d> poses) {
+		int n = poses.size();
+		xs = new double[n];
+		ys = new double[n];
+		rotations = new Rotation2d[n];
+		distances = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = poses.get(i).getX();
+			ys[i] = poses.get(i).getY();
+			rotations[i] = poses.get(i).getRotation();
+			if (i > 0) {
+				distances[i] = distances[i - 1] + Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+			}
+		}
+	}
+
+	/**
+	 * @param trajectory A trajectory
+	 * @return An index over its states' positions, whose indices match the states'. Their rotations are the directions
+	 * of travel, not the robot's heading.
+	 */
+	public static PathIndex ofTrajectory(PathPlannerTrajectory trajectory) {
+		List<Pose2d> poses = new ArrayList<>(trajectory.getStates().size());
+		for (var state : trajectory.getStates()) {
+			poses.add(new Pose2d(state.pose.getTranslation(), state.heading));
+		}
+		return new PathIndex(poses);
+	}
+
+	/**
+	 * @return The number of points
+	 */
+	public int size() {
+		return xs.length;
+	}
+
+	/**
+	 * @param index The index of a point
+	 * @return Its position
+	 */
+	public Translation2d getPoint(int index) {
+		return new Translation2d(xs[index], ys[index]);
+	}
+
+	/**
+	 * @param index The index of a point
+	 * @return The pose it came from
+	 */
+	public Pose2d getPose(int index) {
+		return new Pose2d(xs[index], ys[index], rotations[index]);
+	}
+
+	/**
+	 * @return The length of the whole path, in meters
+	 */
+	public double getLength() {
+		return xs.length == 0 ? 0 : distances[xs.length - 1];
+	}
+
+	/**
+	 * @param index The index of a point
+	 * @return How far along the path it is, in meters
+	 */
+	public double getDistance(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * Finds the closest point to a position on the part of the path within a window after some point along it, earlier
+	 * segments winning ties. The window keeps a path that comes back near itself from placing the robot on a later pass,
+	 * and bounds the search to the segments it covers.
+	 *
+	 * @param position     The position
+	 * @param fromDistance Where the window starts along the path, e.g. where the robot was last located, in meters
+	 * @param window       How long the window is, in meters
+	 * @return Where along the path the closest point is, as the index of the segment's first point plus how far along the
+	 * segment it is from 0 to 1
+	 */
+	public double locate(Translation2d position, double fromDistance, double window) {
+		if (xs.length < 2) {
+			return 0;
+		}
+		double x = position.getX();
+		double y = position.getY();
+		int last = segmentAt(fromDistance + window);
+
+		double nearestDistanceSquared = Double.POSITIVE_INFINITY;
+		double nearest = 0;
+		for (int segment = segmentAt(fromDistance); segment <= last; segment++) {
+			double segmentX = xs[segment + 1] - xs[segment];
+			double segmentY = ys[segment + 1] - ys[segment];
+			double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+			double t = 0;
+			if (lengthSquared > 0) {
+				t = ((x - xs[segment]) * segmentX + (y - ys[segment]) * segmentY) / lengthSquared;
+				t = Math.max(0, Math.min(1, t));
+			}
+			double dx = xs[segment] + t * segmentX - x;
+			double dy = ys[segment] + t * segmentY - y;
+			double distanceSquared = dx * dx + dy * dy;
+			// Strictly closer, so earlier segments win ties
+			if (distanceSquared < nearestDistanceSquared) {
+				nearestDistanceSquared = distanceSquared;
+				nearest = segment + t;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * @param location A location from {@link #locate}
+	 * @return How far along the path it is, in meters
+	 */
+	public double distanceAt(double location) {
+		int segment = Math.min((int) location, xs.length - 1);
+		if (segment == xs.length - 1) {
+			return distances[segment];
+		}
+		return distances[segment] + (location - segment) * (distances[segment + 1] - distances[segment]);
+	}
+
+	/**
+	 * @return The segment a distance along the path falls on, clamped to the path
+	 */
+	private int segmentAt(double distance) {
+		int low = 0;
+		int high = xs.length - 2;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (distances[mid] <= distance) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param distance How far before the end of the path, in meters
+	 * @return The last point more than that far along the path before its end, or -1 if the path isn't that long
+	 */
+	public int indexBeforeEnd(double distance) {
+		double cutoff = getLength() - distance;
+		int low = 0;
+		int high = xs.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (distances[mid] < cutoff) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+}
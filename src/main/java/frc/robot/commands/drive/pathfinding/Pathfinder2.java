@@ -4,7 +4,60 @@ import com.pathplanner.lib.path.GoalEndState;
 import com.pathplanner.lib.path.PathConstraints;
 import com.pathplanner.lib.path.PathPlannerPath;
 import com.pathplanner.lib.pathfinding.Pathfinder;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public interface Pathfinder2 extends Pathfinder {
 	PathPlannerPath getCurrentPathWithoutUpdate(PathConstraints constraints, GoalEndState goalEndState);
+
+	/**
+	 * Set the start position to pathfind from, knowing how fast the robot is moving. Pathfinders that can predict where
+	 * the robot will be by the time the path is ready should start from there.
+	 *
+	 * @param startPosition         The robot's current position on the field
+	 * @param fieldRelativeVelocity The robot's current field-relative velocity, in meters per second
+	 */
+	default void setStartState(Translation2d startPosition, Translation2d fieldRelativeVelocity) {
+		setStartPosition(startPosition);
+	}
+
+	/**
+	 * Set the goal position to pathfind to, along with how the path should arrive there. Only pathfinders that
+	 * {@link #matchesGoalState()} use anything but the position.
+	 *
+	 * @param goalPosition     Goal position on the field
+	 * @param approachHeading  The direction of travel to arrive in, e.g. the initial heading of the path that takes over
+	 *                         from there, or null to arrive in any direction
+	 * @param approachVelocity The speed to arrive at, in meters per second
+	 */
+	default void setGoalState(Translation2d goalPosition, Rotation2d approachHeading, double approachVelocity) {
+		setGoalPosition(goalPosition);
+	}
+
+	/**
+	 * Set moving obstacles to avoid, such as other robots. Pathfinders that can should avoid where each one will be by
+	 * the time the robot gets there, instead of where it is now.
+	 *
+	 * @param tracks          The obstacles' bounding boxes right now, and their velocities
+	 * @param currentRobotPos The current position of the robot
+	 */
+	default void setObstacleTracks(List<ObstacleTrack> tracks, Translation2d currentRobotPos) {
+		List<Pair<Translation2d, Translation2d>> boxes = new ArrayList<>();
+		for (ObstacleTrack track : tracks) {
+			boxes.add(Pair.of(track.corner1(), track.corner2()));
+		}
+		setDynamicObstacles(boxes, currentRobotPos);
+	}
+
+	/**
+	 * @return True if paths arrive at the goal in the direction and at the speed given to
+	 * {@link #setGoalState(Translation2d, Rotation2d, double)}, so they can hand off to a pre-planned path directly
+	 */
+	default boolean matchesGoalState() {
+		return false;
+	}
 }
@@ -9,23 +9,34 @@ import com.pathplanner.lib.pathfinding.Pathfinding;
 import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
 import com.pathplanner.lib.util.DriveFeedforwards;
 
+import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.Flags;
 import frc.robot.commands.drive.pathfinding.commands.PathfindThenFollowPath2;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
 import frc.robot.util.Util;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.*;
 
 /**
@@ -33,28 +44,93 @@ import java.util.function.*;
  * The path's start point will be routed to using dynamic pathfinding, meaning that the selection of the best path should hinge on selecting the most optimal pre-planned path to seek towards.
  */
 public class PathfindingManager {
-	/**
-	 * A default heuristic for path selection preference.
-	 * Based on {@link Pose2d#nearest(List)}
-	 */
-	private static final PathChooser defaultChooser = (currentPose, paths) -> Collections.min(
-		paths,
-		Comparator.<PathPlannerPath, Double>comparing( // sob emoji. https://stackoverflow.com/questions/24436871/very-confused-by-java-8-comparator-type-inference
-			(pathPlannerPath -> currentPose.getTranslation().getDistance(extractStartPose(pathPlannerPath).getTranslation()))
-		).thenComparing(
-			(pathPlannerPath -> currentPose.getRotation().minus(extractStartPose(pathPlannerPath).getRotation()).getRadians())
-		)
-	);
 	private static final PathConstraints CONSTRAINTS = new PathConstraints(3, 2, 540, 540, 12);
+	private static RobotConfig robotConfig = null;
+	/**
+	 * Plans to the candidate paths in parallel while the speculation thread waits for the result. Bounded, since the
+	 * pathfinder's own planning thread still needs to run.
+	 */
+	private static final ExecutorService candidateExecutor = Executors.newFixedThreadPool(
+		Math.min(2, Runtime.getRuntime().availableProcessors()),
+		runnable -> {
+			Thread thread = new Thread(runnable, "Candidate Planning Thread");
+			thread.setDaemon(true);
+			return thread;
+		});
+	/**
+	 * A default heuristic for path selection preference: the least time to pathfind to the path and then follow it
+	 */
+	private static final PathChooser defaultChooser = new TravelTimePathChooser(CONSTRAINTS, () -> robotConfig, candidateExecutor);
+	/**
+	 * Picks the path to the highlighted target ahead of time, off of the robot thread
+	 */
+	private static final ExecutorService speculationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Speculative Planning Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**
+	 * Flips the paths for the red alliance and generates their ideal trajectories ahead of time, so an alliance change
+	 * only swaps lists on the robot thread. A single thread, so trajectories are only generated once the flips are done.
+	 */
+	private static final ExecutorService pathPreparationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Path Preparation Thread");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+	/**
+	 * How often the path to the highlighted target is picked again, since the robot and the obstacles move
+	 */
+	private static final double SPECULATION_REFRESH_SECONDS = 0.5;
+	/**
+	 * How far the robot can be from where the path to the highlighted target was picked for the button press to still use it
+	 */
+	private static final double SPECULATION_TOLERANCE_METERS = 0.5;
+	/**
+	 * The latest path picked for the highlighted target, or null
+	 */
+	private static volatile Speculation speculation = null;
+	private static Future<?> speculationFuture = null;
+	/**
+	 * The path whose start the pathfinder was last pointed at ahead of time, so it's only asked once
+	 */
+	private static PathPlannerPath speculativelyPlanned = null;
 	private static GoalEndState mostRecentSet = null;
 	private static boolean configured = false;
 	private static BiFunction<PathPlannerPath, PathConstraints, PathfindThenFollowPath2> pathfindThenFollowPathCommandBuilder;
+	/**
+	 * Every manager's paths, so a pathfinder configured after the managers were built can still precompute their starts
+	 */
+	private static final List<PathPlannerPath> allPaths = new ArrayList<>();
+	private static final List<PathfindingManager> managers = new ArrayList<>();
 	private final List<PathPlannerPath> pathList;
+	/**
+	 * {@link #pathList} flipped for the red alliance, on {@link #pathPreparationExecutor}
+	 */
+	private final Future<List<PathPlannerPath>> redPathList;
 	private PathChooser pathChooser;
+	/**
+	 * The paths flipped for {@link #pathsAlliance}, or null before the alliance is known
+	 */
+	private List<PathPlannerPath> alliancePaths = null;
+	private Alliance pathsAlliance = null;
+	/**
+	 * A ready-built command for each of {@link #alliancePaths}. Commands keep state between steps, so each is used once
+	 * and then rebuilt.
+	 */
+	private final Map<PathPlannerPath, PreparedCommand> preparedCommands = new IdentityHashMap<>();
 	
 	private PathfindingManager(List<PathPlannerPath> pathList, PathChooser pathChooser, Void ignored) {
 		this.pathList = pathList;
 		this.pathChooser = pathChooser;
+		this.redPathList = pathPreparationExecutor.submit(() -> pathList.stream().map(PathfindingManager::toRedAlliance).toList());
+		allPaths.addAll(pathList);
+		managers.add(this);
+		precomputeCostToGo(pathList);
+		if (robotConfig != null) {
+			generateIdealTrajectories(List.of(this));
+		}
 	}
 	
 	public PathfindingManager(List<String> pathNameList, PathChooser pathChooser) {
@@ -104,6 +180,8 @@ public class PathfindingManager {
 		}
 		
 		configured = true;
+		PathfindingManager.robotConfig = robotConfig;
+		generateIdealTrajectories(List.copyOf(managers));
 		
 		pathfindThenFollowPathCommandBuilder =
 			(path, constraints) ->
@@ -155,11 +233,48 @@ public class PathfindingManager {
 		return pathfindThenFollowPathCommandBuilder.apply(goalPath, pathfindingConstraints);
 	}
 	
+	/**
+	 * Sets the pathfinder used to reach the start of the chosen pre-planned path.
+	 *
+	 * @param p The pathfinder, e.g. {@link frc.robot.commands.drive.pathfinding.pathfinders.LocalADStar2 LocalADStar2} or the
+	 *          any-angle {@link frc.robot.commands.drive.pathfinding.pathfinders.LazyThetaStar LazyThetaStar}
+	 */
 	public static void configurePathfinder(Pathfinder p) {
 		Pathfinding.setPathfinder(p);
+		if (p instanceof GridPathfinder gridPathfinder) {
+			gridPathfinder.setTurnLimits(robotConfig, getTimingConstraints(CONSTRAINTS));
+		}
+		precomputeCostToGo(allPaths);
+	}
+
+	/**
+	 * Has a {@link GridPathfinder} precompute cost-to-go fields for the starts of the given paths on both alliances, and
+	 * for the {@link PathfindThenFollowPath2#extendedStart extended starts} pathfinding usually heads to instead, so
+	 * pathfinding to them is mostly a lookup. Runs on a background thread since it takes a few
+	 * milliseconds per path start.
+	 */
+	private static void precomputeCostToGo(List<PathPlannerPath> paths) {
+		if (!(getPathfinder() instanceof GridPathfinder gridPathfinder) || paths.isEmpty()) {
+			return;
+		}
+
+		List<Translation2d> goals = new ArrayList<>(paths.size() * 4);
+		for (PathPlannerPath bluePath : paths) {
+			for (PathPlannerPath path : List.of(bluePath, toRedAlliance(bluePath))) {
+				goals.add(extractStartPose(path).getTranslation());
+				if (path.numPoints() > 1) {
+					goals.add(PathfindThenFollowPath2.extendedStart(path));
+				}
+			}
+		}
+		Thread thread = new Thread(() -> gridPathfinder.precomputeCostToGo(goals), "Cost-to-go Precompute Thread");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
 	}
+
 	
-	private static Pathfinder getPathfinder() {
+	static Pathfinder getPathfinder() {
 		try {
 			Field f = Pathfinding.class.getDeclaredField("pathfinder");
 			f.setAccessible(true);
@@ -169,6 +284,83 @@ public class PathfindingManager {
 		}
 	}
 	
+	/**
+	 * Sets the position to pathfind from. A {@link Pathfinder2} also gets the robot's velocity, so it can start the path
+	 * from where the robot will be once the path is ready.
+	 *
+	 * @param position              The robot's current position on the field
+	 * @param fieldRelativeVelocity The robot's current field-relative velocity, in meters per second
+	 */
+	public static void setPathfindingStart(Translation2d position, Translation2d fieldRelativeVelocity) {
+		if (getPathfinder() instanceof Pathfinder2 p2) {
+			p2.setStartState(position, fieldRelativeVelocity);
+		} else {
+			Pathfinding.setStartPosition(position);
+		}
+	}
+
+	/**
+	 * Sets the position to pathfind to, and for a {@link Pathfinder2} how the path should arrive there
+	 *
+	 * @param position         The goal position on the field
+	 * @param approachHeading  The direction of travel to arrive in, or null for any
+	 * @param approachVelocity The speed to arrive at, in meters per second
+	 */
+	public static void setPathfindingGoal(Translation2d position, Rotation2d approachHeading, double approachVelocity) {
+		if (getPathfinder() instanceof Pathfinder2 p2) {
+			p2.setGoalState(position, approachHeading, approachVelocity);
+		} else {
+			Pathfinding.setGoalPosition(position);
+		}
+	}
+
+	/**
+	 * Sets moving obstacles, such as other robots, to pathfind around. A {@link Pathfinder2} avoids where they will be by
+	 * the time the robot gets there; other pathfinders avoid where they are now.
+	 *
+	 * @param tracks          The obstacles' bounding boxes right now, and their velocities
+	 * @param currentRobotPos The robot's current position on the field
+	 */
+	public static void setPathfindingObstacleTracks(List<ObstacleTrack> tracks, Translation2d currentRobotPos) {
+		if (getPathfinder() instanceof Pathfinder2 p2) {
+			p2.setObstacleTracks(tracks, currentRobotPos);
+		} else {
+			List<Pair<Translation2d, Translation2d>> boxes = new ArrayList<>();
+			for (ObstacleTrack track : tracks) {
+				boxes.add(Pair.of(track.corner1(), track.corner2()));
+			}
+			Pathfinding.setDynamicObstacles(boxes, currentRobotPos);
+		}
+	}
+
+	/**
+	 * @return True if the pathfinder's paths already arrive at the start of the pre-planned path in its direction and at
+	 * its speed, so they don't need a joining path
+	 */
+	public static boolean pathfinderMatchesGoalState() {
+		return getPathfinder() instanceof Pathfinder2 p2 && p2.matchesGoalState();
+	}
+
+	/**
+	 * @return The constraints used to pathfind to the start of the pre-planned paths
+	 */
+	public static PathConstraints getPathfindingConstraints() {
+		return CONSTRAINTS;
+	}
+
+	/**
+	 * @param constraints The constraints a pathfinding command was given
+	 * @return The constraints to time the command's newest path with, from the robot's own limits at the battery's
+	 * voltage if {@link Flags.DriveTrain#USE_PATHFINDING_RETIMING} is set
+	 * @see TrajectoryRetimer
+	 */
+	public static PathConstraints getTimingConstraints(PathConstraints constraints) {
+		if (!Flags.DriveTrain.USE_PATHFINDING_RETIMING) {
+			return constraints;
+		}
+		return TrajectoryRetimer.constraints(robotConfig, constraints, RobotController.getBatteryVoltage());
+	}
+
 	public static PathPlannerPath getNewestPathfindingPath() {
 		if (mostRecentSet == null) {
 			// System.out.println("No path being run");
@@ -185,11 +377,7 @@ public class PathfindingManager {
 		return p.getStartingHolonomicPose().orElse(p.getStartingDifferentialPose());
 	}
 
-	public static PathPlannerPath flipPathIfNeeded(PathPlannerPath p) {
-		if(Util.onBlueTeam()) {
-			return p;
-		}
-		// System.out.println("flipping path & mirroring");
+	private static PathPlannerPath toRedAlliance(PathPlannerPath p) {
 		return p.flipPath().mirrorPath();
 	}
 	
@@ -223,8 +411,75 @@ public class PathfindingManager {
 		return new GoalEndState(bestPath.getGlobalConstraints().maxVelocityMPS(), targetRotation);
 	}
 	
+	/**
+	 * Switches every manager to the paths for the alliance once it's known or whenever it changes, so picking a path on a
+	 * button press doesn't have to. The paths are flipped ahead of time in the background, so this is cheap and can be
+	 * called every loop.
+	 */
+	public static void updateAlliancePaths() {
+		for (PathfindingManager manager : managers) {
+			manager.getAlliancePaths();
+		}
+	}
+
+	/**
+	 * @return The paths for the current alliance. Until the alliance is known, the paths as drawn for blue, like
+	 * {@link Util#onBlueTeam()} assumes.
+	 */
+	private List<PathPlannerPath> getAlliancePaths() {
+		Optional<Alliance> alliance = DriverStation.getAlliance();
+		if (alliance.isEmpty()) {
+			return pathList;
+		}
+
+		if (alliance.get() != pathsAlliance) {
+			alliancePaths = alliance.get() == Alliance.Blue ? pathList : redPaths();
+			pathsAlliance = alliance.get();
+			preparedCommands.clear();
+		}
+		return alliancePaths;
+	}
+
+	/**
+	 * @return The paths flipped for red, which were flipped in the background when the manager was made. Only waits if
+	 * the alliance is known before that's done.
+	 */
+	private List<PathPlannerPath> redPaths() {
+		try {
+			return redPathList.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			DriverStation.reportError("Failed to flip pathfinding paths for red ahead of time: " + e.getCause(), e.getStackTrace());
+		}
+		return pathList.stream().map(PathfindingManager::toRedAlliance).toList();
+	}
+
+	/**
+	 * Generates the ideal trajectories of the managers' paths for both alliances in the background. The paths keep them,
+	 * so timing a path later is free.
+	 */
+	private static void generateIdealTrajectories(List<PathfindingManager> toGenerate) {
+		RobotConfig config = robotConfig;
+		pathPreparationExecutor.execute(() -> {
+			for (PathfindingManager manager : toGenerate) {
+				try {
+					for (PathPlannerPath path : manager.pathList) {
+						path.getIdealTrajectory(config);
+					}
+					for (PathPlannerPath path : manager.redPathList.get()) {
+						path.getIdealTrajectory(config);
+					}
+				} catch (Exception e) {
+					System.out.println("Failed to generate the ideal trajectories of pathfinding paths");
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+
 	public PathPlannerPath getBestPath(Pose2d currentPose, PathChooser pathChooser) {
-		return pathChooser.bestPath(currentPose, this.pathList.stream().map(PathfindingManager::flipPathIfNeeded).toList());
+		return pathChooser.bestPath(currentPose, getAlliancePaths());
 	}
 	
 	public PathPlannerPath getBestPath(Pose2d currentPose) {
@@ -232,15 +487,112 @@ public class PathfindingManager {
 	}
 	
 	/**
-	 * @see com.pathplanner.lib.commands.PathfindingCommand#PathfindingCommand(PathPlannerPath, PathConstraints, Supplier, Supplier, BiConsumer, PathFollowingController, RobotConfig, BooleanSupplier, Subsystem...)
+	 * Gets ready for the driver to pathfind: keeps a command built for every manager's paths, and for the highlighted
+	 * target picks the path ahead of time and has the pathfinder plan to it. Call every loop from the robot thread, since
+	 * commands can only be built there. Builds at most one command per call.
+	 *
+	 * @param currentPose    The robot's current pose
+	 * @param highlighted    The manager for the target the driver has picked but not started driving to, or null
+	 * @param pathfinderIdle True if nothing is pathfinding, so the pathfinder is free to plan to the highlighted target
 	 */
-	public Command getFullCommand(Pose2d currentPose, PathChooser h) {
-		PathPlannerPath bestPath = this.getBestPath(currentPose, h);
+	public static void prepareCommands(Pose2d currentPose, PathfindingManager highlighted, boolean pathfinderIdle) {
+		updateAlliancePaths();
+		if (!configured) {
+			return;
+		}
+
+		boolean matchesGoalState = pathfinderMatchesGoalState();
+		if (highlighted == null || !highlighted.prepareOne(currentPose, matchesGoalState)) {
+			for (PathfindingManager manager : managers) {
+				if (manager.prepareOne(currentPose, matchesGoalState)) {
+					break;
+				}
+			}
+		}
+
+		if (highlighted == null) {
+			speculation = null;
+			speculativelyPlanned = null;
+			return;
+		}
+
+		Speculation current = speculation;
+		boolean stale = current == null || current.manager() != highlighted
+			|| (System.nanoTime() - current.nanos()) / 1e9 > SPECULATION_REFRESH_SECONDS;
+		List<PathPlannerPath> paths = highlighted.getAlliancePaths();
+		if (stale) {
+			speculate(highlighted, currentPose, paths);
+		}
+
+		if (current != null && current.manager() == highlighted && current.paths() == paths && current.bestPath() != null
+			&& pathfinderIdle && current.bestPath() != speculativelyPlanned) {
+			highlighted.preparedCommand(current.bestPath(), currentPose, matchesGoalState).pathfind().getPfCom().requestPath();
+			speculativelyPlanned = current.bestPath();
+		}
+	}
+
+	/**
+	 * Picks the path to a manager's target on the speculation thread, unless it's still busy with the last one
+	 */
+	private static void speculate(PathfindingManager manager, Pose2d currentPose, List<PathPlannerPath> paths) {
+		if (paths.isEmpty() || (speculationFuture != null && !speculationFuture.isDone())) {
+			return;
+		}
+		PathChooser chooser = manager.pathChooser;
+		speculationFuture = speculationExecutor.submit(() -> {
+			try {
+				PathPlannerPath bestPath = chooser.bestPathInBackground(currentPose, paths);
+				speculation = new Speculation(manager, paths, currentPose, System.nanoTime(), bestPath);
+			} catch (Exception e) {
+				System.out.println("Failed to pick a path to the highlighted target ahead of time");
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * @return The path picked ahead of time for the highlighted target, or null if there is none yet
+	 */
+	public static PathPlannerPath getSpeculatedPath() {
+		Speculation current = speculation;
+		return current != null ? current.bestPath() : null;
+	}
+
+	/**
+	 * Builds a command for one of the paths that doesn't have one, or has one built for a different joining strategy
+	 * than the robot's position calls for now.
+	 *
+	 * @return True if a command was built
+	 */
+	private boolean prepareOne(Pose2d currentPose, boolean matchesGoalState) {
+		for (PathPlannerPath path : getAlliancePaths()) {
+			PreparedCommand prepared = preparedCommands.get(path);
+			if (prepared == null || !prepared.matches(path, currentPose, matchesGoalState)) {
+				preparedCommands.put(path, buildCommand(path));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The ready-built command for the path, built now if there isn't a suitable one
+	 */
+	private PreparedCommand preparedCommand(PathPlannerPath path, Pose2d currentPose, boolean matchesGoalState) {
+		PreparedCommand prepared = preparedCommands.get(path);
+		if (prepared == null || !prepared.matches(path, currentPose, matchesGoalState)) {
+			prepared = buildCommand(path);
+			preparedCommands.put(path, prepared);
+		}
+		return prepared;
+	}
+
+	private static PreparedCommand buildCommand(PathPlannerPath bestPath) {
 		GoalEndState goalEndState = getGoalEndState(bestPath);
 		// System.out.println(goalEndState);
 		PathfindThenFollowPath2 p = pathfindThenFollowPath(bestPath, CONSTRAINTS);
 		
-		return new InstantCommand(() -> mostRecentSet = goalEndState).andThen(p.raceWith(Commands.run(() -> {
+		Command command = new InstantCommand(() -> mostRecentSet = goalEndState).andThen(p.raceWith(Commands.run(() -> {
 			if(p.getPfCom() == null) {
 				System.out.println("pfcom null");
 			}
@@ -252,6 +604,34 @@ public class PathfindingManager {
 				// System.out.println("pptraj null");
 			}
 		})));//.andThen(new InstantCommand(() -> mostRecentSet = null));
+		return new PreparedCommand(p, command);
+	}
+
+	/**
+	 * The returned command is usually already built by {@link #prepareCommands(Pose2d, PathfindingManager, boolean)}, and
+	 * uses the path picked ahead of time if this is the highlighted target and the robot hasn't moved far since.
+	 * Otherwise the chooser picks on the robot thread, which {@link TravelTimePathChooser} keeps to one multi-goal search
+	 * rather than waiting on a search per path, and a fresh pick for this target is started in the background.
+	 *
+	 * @see com.pathplanner.lib.commands.PathfindingCommand#PathfindingCommand(PathPlannerPath, PathConstraints, Supplier, Supplier, BiConsumer, PathFollowingController, RobotConfig, BooleanSupplier, Subsystem...)
+	 */
+	public Command getFullCommand(Pose2d currentPose, PathChooser h) {
+		List<PathPlannerPath> paths = getAlliancePaths();
+		Speculation s = speculation;
+		PathPlannerPath bestPath;
+		if (s != null && s.manager() == this && s.paths() == paths && h == this.pathChooser && s.bestPath() != null
+			&& s.pose().getTranslation().getDistance(currentPose.getTranslation()) < SPECULATION_TOLERANCE_METERS) {
+			bestPath = s.bestPath();
+		} else {
+			bestPath = h.bestPath(currentPose, paths);
+			if (h == this.pathChooser) {
+				speculate(this, currentPose, paths);
+			}
+		}
+
+		PreparedCommand prepared = preparedCommand(bestPath, currentPose, pathfinderMatchesGoalState());
+		preparedCommands.remove(bestPath);
+		return prepared.command();
 	}
 	
 	public Command getFullCommand(Pose2d currentPose) {
@@ -261,4 +641,27 @@ public class PathfindingManager {
 	public void setPreferenceHeuristic(PathChooser h) {
 		this.pathChooser = h;
 	}
+
+	/**
+	 * @param pathfind The pathfinding part of the command
+	 * @param command  The full command to schedule
+	 */
+	private record PreparedCommand(PathfindThenFollowPath2 pathfind, Command command) {
+		/**
+		 * @return True if a command built now would join the path the same way
+		 */
+		boolean matches(PathPlannerPath path, Pose2d currentPose, boolean matchesGoalState) {
+			return pathfind.isExtended() == PathfindThenFollowPath2.isExtendable(path, currentPose.getTranslation(), matchesGoalState);
+		}
+	}
+
+	/**
+	 * A path picked ahead of time for the highlighted target
+	 *
+	 * @param paths The manager's paths it was picked from, which are replaced when the alliance changes
+	 * @param pose  Where the robot was when it was picked
+	 * @param nanos When it was picked, in {@link System#nanoTime()}
+	 */
+	private record Speculation(PathfindingManager manager, List<PathPlannerPath> paths, Pose2d pose, long nanos, PathPlannerPath bestPath) {
+	}
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package frc.robot.commands.drive.pathfinding;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathConstraints;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Times pathfinding paths by what the robot can actually do instead of fixed constraints.
+ * <p>
+ * PathPlanner's trajectory generator already finds the fastest velocity profile along a path with a forward and a
+ * backward pass over its curvature, limited by each module's motor torque at the current limit and the wheels' grip from
+ * the {@link RobotConfig}. It can only be as fast as the path's constraints let it, though. These constraints come from
+ * the same config: the modules' top speed, derated for the battery voltage, and the acceleration the wheels and motors
+ * can put down. The battery voltage also goes in as the constraints' nominal voltage, which the generator works out the
+ * motors' torque at speed with.
+ */
+public final class TrajectoryRetimer {
+	private static final double GRAVITY = 9.81;
+	/**
+	 * The voltage the modules' top speed in the config is measured at
+	 */
+	private static final double CONFIG_VOLTAGE = 12.0;
+	/**
+	 * The battery voltage is never assumed to be lower than this, since it only sags that far for a moment under load
+	 */
+	private static final double MIN_VOLTAGE = 9.0;
+	/**
+	 * How much of the top speed to plan for, leaving the path follower some headroom to correct with
+	 */
+	private static final double VELOCITY_MARGIN = 0.9;
+	/**
+	 * How much of the grip or motor limited acceleration to plan for, since the config's wheel friction is measured on a
+	 * clean carpet
+	 */
+	private static final double ACCELERATION_MARGIN = 0.75;
+
+	private TrajectoryRetimer() {
+	}
+
+	/**
+	 * @param robotConfig    The robot configuration, or null to keep the given constraints
+	 * @param constraints    The constraints to fall back on, whose angular limits are kept if they're tighter
+	 * @param batteryVoltage The battery's voltage right now
+	 * @return The constraints to time a path with
+	 */
+	public static PathConstraints constraints(RobotConfig robotConfig, PathConstraints constraints, double batteryVoltage) {
+		if (robotConfig == null) {
+			return constraints;
+		}
+
+		double voltage = Math.max(MIN_VOLTAGE, Math.min(batteryVoltage, CONFIG_VOLTAGE));
+		double velocity = VELOCITY_MARGIN * robotConfig.moduleConfig.maxDriveVelocityMPS * voltage / CONFIG_VOLTAGE;
+		// Whichever runs out first: the wheels' grip, or the drive motors at their current limit
+		double driveForce = robotConfig.numModules
+			* robotConfig.moduleConfig.driveMotor.getTorque(robotConfig.moduleConfig.driveCurrentLimit)
+			/ robotConfig.moduleConfig.wheelRadiusMeters;
+		double acceleration = ACCELERATION_MARGIN
+			* Math.min(robotConfig.moduleConfig.wheelCOF * GRAVITY, driveForce / robotConfig.massKG);
+
+		// Spinning in place, the modules drive around the farthest one's circle
+		double driveBaseRadius = 0;
+		for (Translation2d location : robotConfig.moduleLocations) {
+			driveBaseRadius = Math.max(driveBaseRadius, location.getNorm());
+		}
+		double angularVelocity = constraints.maxAngularVelocityRadPerSec();
+		double angularAcceleration = constraints.maxAngularAccelerationRadPerSecSq();
+		if (driveBaseRadius > 0) {
+			angularVelocity = Math.min(angularVelocity, velocity / driveBaseRadius);
+			angularAcceleration = Math.min(angularAcceleration, acceleration / driveBaseRadius);
+		}
+
+		return new PathConstraints(velocity, acceleration, angularVelocity, angularAcceleration, voltage);
+	}
+}
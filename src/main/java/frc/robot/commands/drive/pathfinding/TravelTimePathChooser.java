@@ -0,0 +1,258 @@
+package frc.robot.commands.drive.pathfinding;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.commands.drive.pathfinding.commands.PathfindThenFollowPath2;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder;
+import frc.robot.commands.drive.pathfinding.pathfinders.ObstacleGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.function.Supplier;
+
+/**
+ * Picks the path that gets the robot to the end of a pre-planned path the soonest: the time to pathfind to its start,
+ * plus the time to follow it. When the pathfinding command would {@link PathfindThenFollowPath2#isExtendable extend} a
+ * path, it's timed to the extended start and through the connector path instead, since that's what the robot drives.
+ * <p>
+ * The pathfinding distances come from one multi-goal search around the field elements and dynamic obstacles (see
+ * {@link GridPathfinder#estimateCostsToGo(Translation2d, List)}), so a path start that is close in a straight line but
+ * behind the reef isn't mistaken for the closest one. Without a {@link GridPathfinder} they fall back to straight lines.
+ * <p>
+ * Given an executor, picking {@link #bestPathInBackground in the background} plans to every candidate with its own A*
+ * search instead, all at once over the same snapshot of the obstacles, so the robot thread never waits on them.
+ * Candidates are started from the most promising, and each search gives up as soon as it can no longer beat the fastest
+ * candidate finished so far. Candidates with a precomputed cost-to-go field whose path is clear skip the search and are
+ * a lookup (see {@link GridPathfinder#estimateCostToGo(Translation2d, Translation2d, ObstacleGrid)}).
+ */
+public class TravelTimePathChooser implements PathChooser {
+	/**
+	 * How much shorter than the straight line between two positions a planned path can be, since the planners snap them
+	 * to the nearest free node
+	 */
+	private static final double GRID_SNAP_SLACK_METERS = 0.5;
+	private final PathConstraints pathfindingConstraints;
+	private final Supplier<RobotConfig> robotConfigSupplier;
+	private final ExecutorService executor;
+	/**
+	 * Ideal trajectory times by path name. Flipping a path doesn't change how long it takes to follow. Concurrent, since
+	 * paths are also picked ahead of time off of the robot thread.
+	 */
+	private final Map<String, Double> pathTimes = new ConcurrentHashMap<>();
+	private final Alert planningFailedAlert = new Alert(
+		"Pathfinding", "Couldn't plan to a candidate path start, it's being treated as unreachable", AlertType.kWarning);
+	/**
+	 * Paths are picked over and over, so a failure is only reported the first time
+	 */
+	private final AtomicBoolean reportedPlanningFailure = new AtomicBoolean(false);
+
+	/**
+	 * @param pathfindingConstraints The constraints used to pathfind to the start of the chosen path, before
+	 *                               {@link PathfindingManager#getTimingConstraints} retimes them
+	 * @param robotConfigSupplier    Supplies the robot config used to time the pre-planned paths, or null if it isn't loaded yet
+	 */
+	public TravelTimePathChooser(PathConstraints pathfindingConstraints, Supplier<RobotConfig> robotConfigSupplier) {
+		this(pathfindingConstraints, robotConfigSupplier, null);
+	}
+
+	/**
+	 * @param pathfindingConstraints The constraints used to pathfind to the start of the chosen path, before
+	 *                               {@link PathfindingManager#getTimingConstraints} retimes them
+	 * @param robotConfigSupplier    Supplies the robot config used to time the pre-planned paths, or null if it isn't loaded yet
+	 * @param executor               Plans to the candidates in parallel when picking in the background, or null to plan to
+	 *                               all of them with one search
+	 */
+	public TravelTimePathChooser(PathConstraints pathfindingConstraints, Supplier<RobotConfig> robotConfigSupplier, ExecutorService executor) {
+		this.pathfindingConstraints = pathfindingConstraints;
+		this.robotConfigSupplier = robotConfigSupplier;
+		this.executor = executor;
+	}
+
+	@Override
+	public PathPlannerPath bestPath(Pose2d currentPose, List<PathPlannerPath> paths) {
+		return bestPath(currentPose, paths, false);
+	}
+
+	@Override
+	public PathPlannerPath bestPathInBackground(Pose2d currentPose, List<PathPlannerPath> paths) {
+		return bestPath(currentPose, paths, true);
+	}
+
+	/**
+	 * @param inParallel Whether to plan to the candidates in parallel, which the calling thread waits on
+	 */
+	private PathPlannerPath bestPath(Pose2d currentPose, List<PathPlannerPath> paths, boolean inParallel) {
+		// Time the pathfinding the same way the pathfinding command will drive it
+		PathConstraints constraints = PathfindingManager.getTimingConstraints(pathfindingConstraints);
+		boolean matchesGoalState = PathfindingManager.pathfinderMatchesGoalState();
+		List<Translation2d> starts = new ArrayList<>(paths.size());
+		double[] followTimes = new double[paths.size()];
+		for (int i = 0; i < paths.size(); i++) {
+			PathPlannerPath path = paths.get(i);
+			Translation2d start = PathfindingManager.extractStartPose(path).getTranslation();
+			followTimes[i] = pathTime(path);
+			if (PathfindThenFollowPath2.isExtendable(path, currentPose.getTranslation(), matchesGoalState)) {
+				Translation2d extendedStart = PathfindThenFollowPath2.extendedStart(path);
+				followTimes[i] += connectorTime(constraints, path, extendedStart.getDistance(start));
+				start = extendedStart;
+			}
+			starts.add(start);
+		}
+
+		double[] times;
+		if (!(PathfindingManager.getPathfinder() instanceof GridPathfinder gridPathfinder)) {
+			times = new double[paths.size()];
+			for (int i = 0; i < paths.size(); i++) {
+				times[i] = pathfindingTime(constraints, currentPose.getTranslation().getDistance(starts.get(i))) + followTimes[i];
+			}
+		} else if (!inParallel || executor == null || paths.size() < 2) {
+			double[] distances = gridPathfinder.estimateCostsToGo(currentPose.getTranslation(), starts);
+			times = new double[paths.size()];
+			for (int i = 0; i < paths.size(); i++) {
+				times[i] = pathfindingTime(constraints, distances[i]) + followTimes[i];
+			}
+		} else {
+			times = planInParallel(gridPathfinder, constraints, currentPose.getTranslation(), starts, followTimes);
+		}
+
+		PathPlannerPath bestPath = null;
+		double bestTime = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < paths.size(); i++) {
+			if (bestPath == null || times[i] < bestTime) {
+				bestTime = times[i];
+				bestPath = paths.get(i);
+			}
+		}
+		return bestPath;
+	}
+
+	/**
+	 * @return The travel time through each candidate, or infinity for the ones that were given up on
+	 */
+	private double[] planInParallel(GridPathfinder gridPathfinder, PathConstraints constraints, Translation2d from, List<Translation2d> starts, double[] followTimes) {
+		ObstacleGrid obstacles = gridPathfinder.getObstacleSnapshot();
+		DoubleAccumulator bestTime = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+
+		// A straight line is never longer than the planned path (give or take snapping), so this is the best a candidate could possibly do
+		Integer[] order = new Integer[starts.size()];
+		double[] lowerBounds = new double[starts.size()];
+		for (int i = 0; i < starts.size(); i++) {
+			order[i] = i;
+			lowerBounds[i] = pathfindingTime(constraints, Math.max(0, from.getDistance(starts.get(i)) - GRID_SNAP_SLACK_METERS)) + followTimes[i];
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(lowerBounds[a], lowerBounds[b]));
+
+		List<Future<Double>> futures = new ArrayList<>(starts.size());
+		for (int i : order) {
+			futures.add(executor.submit(() -> {
+				if (lowerBounds[i] >= bestTime.get()) {
+					return Double.POSITIVE_INFINITY;
+				}
+				double distance = gridPathfinder.estimateCostToGo(from, starts.get(i), obstacles);
+				if (Double.isNaN(distance)) {
+					distance = gridPathfinder.planCost(
+						from, starts.get(i), obstacles, () -> pathfindingDistance(constraints, bestTime.get() - followTimes[i]));
+				}
+				double time = pathfindingTime(constraints, distance) + followTimes[i];
+				bestTime.accumulate(time);
+				return time;
+			}));
+		}
+
+		double[] times = new double[starts.size()];
+		for (int k = 0; k < order.length; k++) {
+			try {
+				times[order[k]] = futures.get(k).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				times[order[k]] = Double.POSITIVE_INFINITY;
+			} catch (ExecutionException e) {
+				if (reportedPlanningFailure.compareAndSet(false, true)) {
+					planningFailedAlert.set(true);
+					DriverStation.reportError(
+						"Failed to plan to candidate path start " + starts.get(order[k]) + ": " + e.getCause(), e.getStackTrace());
+				}
+				times[order[k]] = Double.POSITIVE_INFINITY;
+			}
+		}
+		return times;
+	}
+
+	/**
+	 * The time to pathfind a distance starting from rest. The pathfinding path hands off to the pre-planned one at full
+	 * speed, so it only has to accelerate.
+	 */
+	private static double pathfindingTime(PathConstraints constraints, double distance) {
+		double maxVelocity = constraints.maxVelocityMPS();
+		double maxAcceleration = constraints.maxAccelerationMPSSq();
+		double accelerationDistance = maxVelocity * maxVelocity / (2 * maxAcceleration);
+		if (distance < accelerationDistance) {
+			return Math.sqrt(2 * distance / maxAcceleration);
+		}
+		return (distance - accelerationDistance) / maxVelocity + maxVelocity / maxAcceleration;
+	}
+
+	/**
+	 * The time to follow the connector path from the extended start to the start of the path, at the speed the path
+	 * starts at
+	 */
+	private static double connectorTime(PathConstraints constraints, PathPlannerPath path, double distance) {
+		double velocity = Math.min(path.getIdealStartingState().velocityMPS(), constraints.maxVelocityMPS());
+		if (velocity > 0) {
+			return distance / velocity;
+		}
+		// The path starts from rest, so the pathfinding stops at the extended start and the connector is too short to reach full speed
+		return 2 * Math.sqrt(distance / constraints.maxAccelerationMPSSq());
+	}
+
+	/**
+	 * The inverse of {@link #pathfindingTime(PathConstraints, double)}: how far the robot can pathfind in some time
+	 */
+	private static double pathfindingDistance(PathConstraints constraints, double time) {
+		if (time <= 0) {
+			return 0;
+		}
+		double maxVelocity = constraints.maxVelocityMPS();
+		double maxAcceleration = constraints.maxAccelerationMPSSq();
+		double accelerationTime = maxVelocity / maxAcceleration;
+		if (time < accelerationTime) {
+			return maxAcceleration * time * time / 2;
+		}
+		return maxVelocity * maxVelocity / (2 * maxAcceleration) + (time - accelerationTime) * maxVelocity;
+	}
+
+	/**
+	 * The time to follow a pre-planned path, or 0 if it can't be timed yet
+	 */
+	private double pathTime(PathPlannerPath path) {
+		Double cached = pathTimes.get(path.name);
+		if (cached != null) {
+			return cached;
+		}
+
+		RobotConfig robotConfig = robotConfigSupplier.get();
+		if (robotConfig == null) {
+			return 0;
+		}
+		double time = path.getIdealTrajectory(robotConfig)
+			.orElseGet(() -> path.generateTrajectory(new ChassisSpeeds(), PathfindingManager.extractStartPose(path).getRotation(), robotConfig))
+			.getTotalTimeSeconds();
+		pathTimes.put(path.name, time);
+		return time;
+	}
+}
@@ -16,6 +16,7 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj2.command.*;
 import frc.robot.RobotContainer;
+import frc.robot.commands.drive.pathfinding.PathIndex;
 import frc.robot.commands.drive.pathfinding.PathfindingManager;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
 import frc.robot.util.Util;
@@ -34,6 +35,7 @@ import java.util.function.Supplier;
 public class PathfindThenFollowPath2 extends SequentialCommandGroup {
 	
 	private final PathfindingCommand2 pfCom;
+	private final boolean extended;
 	private final Function<Supplier<PathPlannerPath>, Command> generateDeferredPathJoinerCommand;
 
 	private static boolean f() {
@@ -140,12 +142,12 @@ public class PathfindThenFollowPath2 extends SequentialCommandGroup {
 		// we need to extend the points on the end path as part of the connection algo
 		List<Pose2d> pathPoses = goalPath.getPathPoses();
 		Pose2d goalPathStart = new Pose2d(pathPoses.get(0).getTranslation(), goalPath.getIdealStartingState().rotation());
-		boolean extendable = pathPoses.size() > 1 && poseSupplier.get().getTranslation().getDistance(goalPathStart.getTranslation()) > 0.5;
-		if (extendable) {
+		this.extended = isExtendable(goalPath, poseSupplier.get().getTranslation(), PathfindingManager.pathfinderMatchesGoalState());
+		if (extended) {
 			System.out.println("extendable, going for it");
 			Rotation2d slopeStart = Util.slopeAngle(goalPathStart, pathPoses.get(1)); // slope
 			System.out.println("GPS: " + goalPathStart + ", slope: " + slopeStart);
-			Pose2d extended = new Pose2d(goalPathStart.getTranslation().plus(new Translation2d(0.5, slopeStart)), goalPathStart.getRotation()); // more
+			Pose2d extended = new Pose2d(extendedStart(goalPath), goalPathStart.getRotation()); // more
 			System.out.println("Extended pose: " + extended);
 			
 			this.pfCom = new PathfindingCommand2( // path find to the extended part of the path
@@ -180,38 +182,37 @@ public class PathfindThenFollowPath2 extends SequentialCommandGroup {
 				// we just need to make another command here that runs alongside pfCom that changes targetPose to be the start point of the next connection path
 				this.pfCom.alongWith(Commands.waitSeconds(0.25).andThen(Commands.runOnce(() -> {
 					System.out.println("RUNNING THE RUNONCE PART");
-					// get the currently running path
-					PathPlannerPath pathfindingPath = PathfindingManager.getNewestPathfindingPath(); // this shouldn't screw anything up
-					if (pathfindingPath != null) {
+					// get the currently running path, already indexed if its trajectory has been generated
+					PathIndex index = this.pfCom.currentIndex;
+					if (index == null) {
+						PathPlannerPath pathfindingPath = PathfindingManager.getNewestPathfindingPath(); // this shouldn't screw anything up
+						if (pathfindingPath != null) {
+							index = new PathIndex(pathfindingPath.getPathPoses());
+						}
+					}
+					if (index != null) {
 						System.out.println("found a pathfinding path");
-						List<Pose2d> poses = pathfindingPath.getPathPoses(); // you guessed it. another slope calculation
-						if (poses.size() > 1) {
+						if (index.size() > 1) {
 							// as a YOLO heuristic (read: i'm coding this at 5am) we can just kinda guess where we wanna end the previous path. maybe 0.5m before it ends?
 							// if the path is less than 0.5m total then just do nothing, since either 1) we started out close anyways, or 2) we were previously doing this already so just stick to it
 							final double tooFarAway = 1;
-							if (poses.get(poses.size() - 1).getTranslation().getDistance(poses.get(0).getTranslation()) > tooFarAway) {
+							Translation2d last = index.getPoint(index.size() - 1);
+							if (last.getDistance(index.getPoint(0)) > tooFarAway) {
 								System.out.println("far enough away, finding a new target point");
-								// sample it at 0.5m before the end
-								Pose2d last = poses.get(poses.size() - 1);
-								int idx = poses.size() - 1;
-								// iterate from the end until we find a pose 0.5m away
-								for (int i = poses.size() - 2; i >= 0; i--) {
-									if (poses.get(i).getTranslation().getDistance(last.getTranslation()) > tooFarAway) {
-										System.out.println("found the first one that's at the distance limit. idx: " + i + ", pose: " + poses.get(i) + ", poses size: " + poses.size());
-										idx = i;
-										break;
-									}
-								}
-								Rotation2d slope = Util.slopeAngle(poses.get(idx), poses.get(idx + 1)); // slope of the cut-off area of auto-gen path
+								// the last point more than the distance limit along the path before its end
+								int idx = index.indexBeforeEnd(tooFarAway);
+								System.out.println("found the first one that's at the distance limit. idx: " + idx + ", point: " + index.getPoint(idx) + ", points size: " + index.size());
+								// slope of the cut-off area of auto-gen path
+								Rotation2d slope = index.getPoint(idx).minus(index.getPoint(idx + 1)).getAngle();
 								// with the slope we want to use it to generate a smooth bezier trajectory
 								// note: in a PathPlannerPath the Rotation2d is the heading of the trajectory, NOT of the robot chassis. trajectory heading = the direction of the robot's velocity vector
-								newTarget.set(new Pose2d(poses.get(idx).getTranslation(), slope.plus(Rotation2d.k180deg)));
+								newTarget.set(new Pose2d(index.getPoint(idx), slope.plus(Rotation2d.k180deg)));
 								System.out.println("new target: " + newTarget);
 								System.out.println("goal end rotation for pathfinding: " + goalPath.getIdealStartingState().rotation());
 								this.pfCom.targetPose = newTarget.get();
 								// Pathfinding.setGoalPosition(newTarget.get().getTranslation()); // sneak in and change it
 							} else {
-								newTarget.set(poses.get(poses.size() - 1)); // just go to endpoint
+								newTarget.set(index.getPose(index.size() - 1)); // just go to endpoint
 							}
 							
 							if (Util.isSim()) {
@@ -313,6 +314,33 @@ public class PathfindThenFollowPath2 extends SequentialCommandGroup {
 		}
 	}
 	
+	/**
+	 * Whether the command would pathfind past the start of the path and join it with a connector path, rather than
+	 * pathfinding straight to it
+	 *
+	 * @param goalPath                   the goal path to follow
+	 * @param position                   the robot's position when the command is built
+	 * @param pathfinderMatchesGoalState true if the pathfinder already arrives tangent to the path at its speed, see
+	 *                                   {@link PathfindingManager#pathfinderMatchesGoalState()}
+	 */
+	public static boolean isExtendable(PathPlannerPath goalPath, Translation2d position, boolean pathfinderMatchesGoalState) {
+		// A pathfinder that already arrives tangent to the path at its speed doesn't need the extended goal and connector path
+		return !pathfinderMatchesGoalState
+			&& goalPath.numPoints() > 1 && position.getDistance(goalPath.getPoint(0).position) > 0.5;
+	}
+
+	/**
+	 * Where the command pathfinds to when it {@link #isExtendable extends} past the start of the path: 0.5 m before its
+	 * start, in line with its first segment
+	 *
+	 * @param goalPath the goal path to follow, with at least two points
+	 */
+	public static Translation2d extendedStart(PathPlannerPath goalPath) {
+		List<Pose2d> pathPoses = goalPath.getPathPoses();
+		Rotation2d slopeStart = Util.slopeAngle(pathPoses.get(0), pathPoses.get(1));
+		return pathPoses.get(0).getTranslation().plus(new Translation2d(0.5, slopeStart));
+	}
+
 	private static PathPlannerTrajectory trajFromFollowPathCom(FollowPathCommand c) {
 		try {
 			var f = FollowPathCommand.class.getDeclaredField("trajectory");
@@ -326,4 +354,12 @@ public class PathfindThenFollowPath2 extends SequentialCommandGroup {
 	public PathfindingCommand2 getPfCom() {
 		return this.pfCom;
 	}
+
+	/**
+	 * @return True if this pathfinds past the start of the path and joins it with a connector path
+	 * @see #isExtendable(PathPlannerPath, Translation2d, boolean)
+	 */
+	public boolean isExtended() {
+		return this.extended;
+	}
 }
@@ -16,6 +16,7 @@ import edu.wpi.first.hal.HAL;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.measure.LinearVelocity;
@@ -23,20 +24,67 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.commands.drive.pathfinding.PathIndex;
+import frc.robot.commands.drive.pathfinding.PathfindingManager;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
-/** Base pathfinding command */
+/**
+ * Base pathfinding command
+ *
+ * <p>Trajectories for new paths are generated on a background thread, so a long path can't push the
+ * robot loop into overrun. The command keeps following the previous trajectory until the new one is
+ * ready, then swaps it in.
+ */
 public class PathfindingCommand2 extends Command {
     private static int instances = 0;
 
+    /**
+     * How far along a new trajectory the robot is looked for. Each one starts where the robot was
+     * when its path was planned, so the robot can't have gotten much farther along it than this, and
+     * a path that comes back near itself can't place the robot on its later pass.
+     */
+    private static final double LOCATE_WINDOW_METERS = 2.0;
+
+    private static final ExecutorService trajectoryExecutor =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "Pathfinding Trajectory Thread");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    /**
+     * A trajectory generated in the background, ready to be swapped in
+     *
+     * @param run The run of the command it was generated for
+     * @param path The path it follows
+     * @param trajectory The trajectory, or null if it couldn't be generated
+     * @param index The trajectory's states indexed by position, or null with it
+     * @param timeOffset Where along the trajectory the robot was when it was requested
+     * @param timestamp When it was requested, in FPGA seconds
+     */
+    private record PreparedTrajectory(
+            int run,
+            PathPlannerPath path,
+            PathPlannerTrajectory trajectory,
+            PathIndex index,
+            double timeOffset,
+            double timestamp) {}
+
     private final Timer timer = new Timer();
     public final PathPlannerPath targetPath;
     public Pose2d targetPose;
     private Pose2d originalTargetPose;
     private GoalEndState goalEndState;
     private final PathConstraints constraints;
+    /** The constraints the newest path was timed with, see {@link PathfindingManager#getTimingConstraints} */
+    private PathConstraints timingConstraints;
     private final Supplier<Pose2d> poseSupplier;
     private final Supplier<ChassisSpeeds> speedsSupplier;
     private final BiConsumer<ChassisSpeeds, DriveFeedforwards> output;
@@ -46,11 +94,18 @@ public class PathfindingCommand2 extends Command {
 
     public PathPlannerPath currentPath;
     public PathPlannerTrajectory currentTrajectory;
+    /** The current trajectory's states indexed by position */
+    public PathIndex currentIndex;
 
     private double timeOffset = 0;
 
     private boolean finish = false;
 
+    private final AtomicReference<PreparedTrajectory> preparedTrajectory = new AtomicReference<>();
+    private final AtomicBoolean generatingTrajectory = new AtomicBoolean(false);
+    /** Incremented every time the command starts, so trajectories requested by a previous run are dropped */
+    private int run = 0;
+
     /**
      * Constructs a new base pathfinding command that will generate a path towards the given path.
      *
@@ -246,12 +301,17 @@ public class PathfindingCommand2 extends Command {
     @Override
     public void initialize() {
         currentTrajectory = null;
+        currentIndex = null;
+        timingConstraints = PathfindingManager.getTimingConstraints(constraints);
         timeOffset = 0;
         finish = false;
+        run++;
+        preparedTrajectory.set(null);
 
         Pose2d currentPose = poseSupplier.get();
+        ChassisSpeeds currentSpeeds = speedsSupplier.get();
 
-        controller.reset(currentPose, speedsSupplier.get());
+        controller.reset(currentPose, currentSpeeds);
 
         if (targetPath != null) {
             originalTargetPose =
@@ -266,11 +326,38 @@ public class PathfindingCommand2 extends Command {
             output.accept(new ChassisSpeeds(), DriveFeedforwards.zeros(robotConfig.numModules));
             finish = true;
         } else {
-            Pathfinding.setStartPosition(currentPose.getTranslation());
-            Pathfinding.setGoalPosition(targetPose.getTranslation());
+            requestPath(currentPose, currentSpeeds);
         }
     }
 
+    /**
+     * Points the pathfinder from the robot to this command's target without starting the command, so a path is
+     * already planned by the time it does. Starting it asks for the same goal again, which a pathfinder that keeps its
+     * search can answer right away.
+     */
+    public void requestPath() {
+        requestPath(poseSupplier.get(), speedsSupplier.get());
+    }
+
+    private void requestPath(Pose2d currentPose, ChassisSpeeds currentSpeeds) {
+        // Plan from where the robot will be once the path arrives, so the first trajectory sample lines up with it
+        ChassisSpeeds fieldSpeeds =
+                ChassisSpeeds.fromRobotRelativeSpeeds(currentSpeeds, currentPose.getRotation());
+        PathfindingManager.setPathfindingStart(
+                currentPose.getTranslation(),
+                new Translation2d(fieldSpeeds.vxMetersPerSecond, fieldSpeeds.vyMetersPerSecond));
+        // Pathfinders that can will arrive in the direction the target path sets off in, at its speed
+        Rotation2d approachHeading = null;
+        if (targetPath != null) {
+            approachHeading = targetPath.getInitialHeading();
+            if (shouldFlipPath.getAsBoolean()) {
+                approachHeading = FlippingUtil.flipFieldRotation(approachHeading);
+            }
+        }
+        PathfindingManager.setPathfindingGoal(
+                targetPose.getTranslation(), approachHeading, goalEndState.velocityMPS());
+    }
+
     @Override
     public void execute() {
         if (finish) {
@@ -291,70 +378,48 @@ public class PathfindingCommand2 extends Command {
                         .getDistance(currentTrajectory.getEndState().pose.getTranslation())
                         < 2.0;
 
-        if (!skipUpdates && Pathfinding.isNewPathAvailable()) {
-            currentPath = Pathfinding.getCurrentPath(constraints, goalEndState);
+        if (!skipUpdates) {
+            // Only take the next path once the last one has been generated, the newest one is all that matters
+            if (Pathfinding.isNewPathAvailable() && generatingTrajectory.compareAndSet(false, true)) {
+                timingConstraints = PathfindingManager.getTimingConstraints(constraints);
+                PathPlannerPath path = Pathfinding.getCurrentPath(timingConstraints, goalEndState);
+                if (path != null) {
+                    int requestRun = run;
+                    double timestamp = Timer.getFPGATimestamp();
+                    trajectoryExecutor.execute(
+                            () -> {
+                                try {
+                                    preparedTrajectory.set(
+                                            prepareTrajectory(
+                                                    requestRun, path, currentPose, currentSpeeds, timestamp));
+                                } finally {
+                                    generatingTrajectory.set(false);
+                                }
+                            });
+                } else {
+                    generatingTrajectory.set(false);
+                }
+            }
 
-            if (currentPath != null) {
-                currentTrajectory =
-                        new PathPlannerTrajectory(
-                                currentPath, currentSpeeds, currentPose.getRotation(), robotConfig);
-                if (!Double.isFinite(currentTrajectory.getTotalTimeSeconds())) {
+            PreparedTrajectory prepared = preparedTrajectory.getAndSet(null);
+            if (prepared != null && prepared.run() == run) {
+                if (prepared.trajectory() == null) {
                     finish = true;
                     return;
                 }
 
-                // Find the two closest states in front of and behind robot
-                int closestState1Idx = 0;
-                int closestState2Idx = 1;
-                while (closestState2Idx < currentTrajectory.getStates().size() - 1) {
-                    double closest2Dist =
-                            currentTrajectory
-                                    .getState(closestState2Idx)
-                                    .pose
-                                    .getTranslation()
-                                    .getDistance(currentPose.getTranslation());
-                    double nextDist =
-                            currentTrajectory
-                                    .getState(closestState2Idx + 1)
-                                    .pose
-                                    .getTranslation()
-                                    .getDistance(currentPose.getTranslation());
-                    if (nextDist < closest2Dist) {
-                        closestState1Idx++;
-                        closestState2Idx++;
-                    } else {
-                        break;
-                    }
-                }
-
-                // Use the closest 2 states to interpolate what the time offset should be
-                // This will account for the delay in pathfinding
-                var closestState1 = currentTrajectory.getState(closestState1Idx);
-                var closestState2 = currentTrajectory.getState(closestState2Idx);
-
-                double d =
-                        closestState1.pose.getTranslation().getDistance(closestState2.pose.getTranslation());
-                double t =
-                        (currentPose.getTranslation().getDistance(closestState1.pose.getTranslation())) / d;
-                t = MathUtil.clamp(t, 0.0, 1.0);
-
-                timeOffset = MathUtil.interpolate(closestState1.timeSeconds, closestState2.timeSeconds, t);
-
-                // If the robot is stationary and at the start of the path, set the time offset to the next
-                // loop
-                // This can prevent an issue where the robot will remain stationary if new paths come in
-                // every loop
-                if (timeOffset <= 0.02
-                        && Math.hypot(currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond) < 0.1) {
-                    timeOffset = 0.02;
-                }
+                currentPath = prepared.path();
+                currentTrajectory = prepared.trajectory();
+                currentIndex = prepared.index();
+                // The robot kept moving along the previous trajectory while this one was generated
+                timeOffset = prepared.timeOffset() + (Timer.getFPGATimestamp() - prepared.timestamp());
 
                 PathPlannerLogging.logActivePath(currentPath);
                 PPLibTelemetry.setCurrentPath(currentPath);
-            }
 
-            timer.reset();
-            timer.start();
+                timer.reset();
+                timer.start();
+            }
         }
 
         if (currentTrajectory != null) {
@@ -382,6 +447,50 @@ public class PathfindingCommand2 extends Command {
         }
     }
 
+    /**
+     * Generates the trajectory for a new path and finds where along it the robot is. Runs on the
+     * trajectory thread.
+     */
+    private PreparedTrajectory prepareTrajectory(
+            int requestRun,
+            PathPlannerPath path,
+            Pose2d currentPose,
+            ChassisSpeeds currentSpeeds,
+            double timestamp) {
+        PathPlannerTrajectory trajectory =
+                new PathPlannerTrajectory(path, currentSpeeds, currentPose.getRotation(), robotConfig);
+        if (!Double.isFinite(trajectory.getTotalTimeSeconds())) {
+            return new PreparedTrajectory(requestRun, path, null, null, 0, timestamp);
+        }
+
+        // Find the closest point along the trajectory and interpolate the time offset between the
+        // states on either side of it
+        // This will account for the delay in pathfinding
+        PathIndex index = PathIndex.ofTrajectory(trajectory);
+        double location = index.locate(currentPose.getTranslation(), 0, LOCATE_WINDOW_METERS);
+        int closestStateIdx = (int) location;
+
+        double timeOffset = trajectory.getState(closestStateIdx).timeSeconds;
+        if (closestStateIdx + 1 < trajectory.getStates().size()) {
+            timeOffset =
+                    MathUtil.interpolate(
+                            timeOffset,
+                            trajectory.getState(closestStateIdx + 1).timeSeconds,
+                            location - closestStateIdx);
+        }
+
+        // If the robot is stationary and at the start of the path, set the time offset to the next
+        // loop
+        // This can prevent an issue where the robot will remain stationary if new paths come in
+        // every loop
+        if (timeOffset <= 0.02
+                && Math.hypot(currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond) < 0.1) {
+            timeOffset = 0.02;
+        }
+
+        return new PreparedTrajectory(requestRun, path, trajectory, index, timeOffset, timestamp);
+    }
+
     @Override
     public boolean isFinished() {
         if (finish) {
@@ -394,7 +503,9 @@ public class PathfindingCommand2 extends Command {
 
             double currentVel =
                     Math.hypot(currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond);
-            double stoppingDistance = Math.pow(currentVel, 2) / (2 * constraints.maxAccelerationMPSSq());
+            // Stop by the limits the robot is actually driving, not the ones the command was given
+            double stoppingDistance =
+                    Math.pow(currentVel, 2) / (2 * timingConstraints.maxAccelerationMPSSq());
 
             return currentPose.getTranslation().getDistance(targetPose.getTranslation())
                     <= stoppingDistance;
@@ -0,0 +1,196 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Primitive storage for the per-node AD* search state ({@code g}, {@code rhs}, and membership in the open, closed and incons sets).
+ * <p>
+ * Nodes are addressed by their flat index, {@code x * nodesY + y}. Every node carries a generation stamp; a node whose stamp
+ * doesn't match the current generation reads as {@code g = rhs = infinity} and belongs to no set. This makes {@link #reset()}
+ * O(1) instead of refilling the whole grid, and nothing here boxes or allocates once constructed.
+ */
+public class ADStarGridState {
+	private final int nodeCount;
+	private final double[] g;
+	private final double[] rhs;
+	private final int[] valueStamp;
+
+	private final IndexedMinHeap open;
+
+	private final int[] inconsStamp;
+	private final int[] inconsNodes;
+	private int inconsSize = 0;
+
+	private final int[] closedStamp;
+	private int closedGeneration = 1;
+
+	private int generation = 1;
+
+	/**
+	 * @param nodeCount The number of nodes in the grid (nodesX * nodesY)
+	 */
+	public ADStarGridState(int nodeCount) {
+		this.nodeCount = nodeCount;
+		this.g = new double[nodeCount];
+		this.rhs = new double[nodeCount];
+		this.valueStamp = new int[nodeCount];
+		this.open = new IndexedMinHeap(nodeCount);
+		this.inconsStamp = new int[nodeCount];
+		this.inconsNodes = new int[nodeCount];
+		this.closedStamp = new int[nodeCount];
+	}
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Sets every node back to {@code g = rhs = infinity} and empties the open, closed and incons sets, in O(1).
+	 */
+	public void reset() {
+		if (generation == Integer.MAX_VALUE) {
+			// Practically never happens, but stamps from 2^31 resets ago would otherwise start to look valid again
+			Arrays.fill(valueStamp, 0);
+			Arrays.fill(inconsStamp, 0);
+			generation = 0;
+		}
+		generation++;
+		open.clear();
+		inconsSize = 0;
+		clearClosed();
+	}
+
+	public double g(int node) {
+		return valueStamp[node] == generation ? g[node] : Double.POSITIVE_INFINITY;
+	}
+
+	public double rhs(int node) {
+		return valueStamp[node] == generation ? rhs[node] : Double.POSITIVE_INFINITY;
+	}
+
+	public void setG(int node, double value) {
+		touch(node);
+		g[node] = value;
+	}
+
+	public void setRhs(int node, double value) {
+		touch(node);
+		rhs[node] = value;
+	}
+
+	private void touch(int node) {
+		if (valueStamp[node] != generation) {
+			valueStamp[node] = generation;
+			g[node] = Double.POSITIVE_INFINITY;
+			rhs[node] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	public boolean isOpen(int node) {
+		return open.contains(node);
+	}
+
+	/**
+	 * Inserts a node into the open set, or replaces its key if it is already there. O(log n).
+	 */
+	public void putOpen(int node, double key1, double key2) {
+		open.insertOrUpdate(node, key1, key2);
+	}
+
+	/**
+	 * Removes a node from the open set if it is there. O(log n).
+	 */
+	public void removeOpen(int node) {
+		open.remove(node);
+	}
+
+	public int openSize() {
+		return open.size();
+	}
+
+	/**
+	 * @param slot A position in [0, {@link #openSize()})
+	 * @return The node stored at that position of the open set. Slots are reordered whenever the open set changes.
+	 */
+	public int openNodeAt(int slot) {
+		return open.nodeAt(slot);
+	}
+
+	public double openKey1(int node) {
+		return open.key1(node);
+	}
+
+	public double openKey2(int node) {
+		return open.key2(node);
+	}
+
+	/**
+	 * @return The open node with the smallest (key1, key2) pair, or -1 if the open set is empty. O(1).
+	 */
+	public int topOpen() {
+		return open.peek();
+	}
+
+	/**
+	 * Recomputes the key of every open node, then restores the heap order once.
+	 *
+	 * @param key1 Computes the new first key element for a node
+	 * @param key2 Computes the new second key element for a node
+	 */
+	public void rekeyOpen(IntToDoubleFunction key1, IntToDoubleFunction key2) {
+		for (int i = 0; i < open.size(); i++) {
+			int node = open.nodeAt(i);
+			open.setKeyUnordered(node, key1.applyAsDouble(node), key2.applyAsDouble(node));
+		}
+		open.heapify();
+	}
+
+	public void addIncons(int node) {
+		if (inconsStamp[node] != generation) {
+			inconsStamp[node] = generation;
+			inconsNodes[inconsSize++] = node;
+		}
+	}
+
+	/**
+	 * Moves every node of the incons set into the open set (with a placeholder key) and empties the incons set.
+	 * Callers must {@link #rekeyOpen(IntToDoubleFunction, IntToDoubleFunction) recompute every open key} afterward, which also restores the heap order.
+	 */
+	public void moveInconsToOpen() {
+		for (int i = 0; i < inconsSize; i++) {
+			int node = inconsNodes[i];
+			inconsStamp[node] = 0;
+			open.insertUnordered(node, 0.0, 0.0);
+		}
+		inconsSize = 0;
+	}
+
+	public boolean isClosed(int node) {
+		return closedStamp[node] == closedGeneration;
+	}
+
+	public void close(int node) {
+		closedStamp[node] = closedGeneration;
+	}
+
+	public void clearClosed() {
+		if (closedGeneration == Integer.MAX_VALUE) {
+			Arrays.fill(closedStamp, 0);
+			closedGeneration = 0;
+		}
+		closedGeneration++;
+	}
+
+	/**
+	 * Lexicographically compares two AD* keys.
+	 */
+	public static int compareKeys(double a1, double a2, double b1, double b2) {
+		int first = Double.compare(a1, b1);
+		if (first == 0) {
+			return Double.compare(a2, b2);
+		} else {
+			return first;
+		}
+	}
+}
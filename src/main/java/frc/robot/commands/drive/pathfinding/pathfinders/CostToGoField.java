@@ -0,0 +1,34 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+/**
+ * The cost of the cheapest path from every node of the navgrid to one goal node, around a fixed set of obstacles (only
+ * the static ones, for {@link GridPathfinder#precomputeCostToGo(java.util.Collection) precomputed} fields).
+ * <p>
+ * Stored as one {@code float} per node (about 6 KB for the whole field), in the same units as the planners' edge costs:
+ * distance in nodes, scaled up near obstacles. Unreachable nodes are infinite. Immutable, so it can be shared between threads.
+ *
+ * @see GridPathfinder#precomputeCostToGo(java.util.Collection)
+ */
+public final class CostToGoField {
+	private final int goal;
+	private final float[] costToGo;
+
+	CostToGoField(int goal, float[] costToGo) {
+		this.goal = goal;
+		this.costToGo = costToGo;
+	}
+
+	/**
+	 * @return The goal's node index
+	 */
+	public int goal() {
+		return goal;
+	}
+
+	/**
+	 * @param index A node index, {@code x * nodesY + y}
+	 */
+	public double costToGo(int index) {
+		return costToGo[index];
+	}
+}
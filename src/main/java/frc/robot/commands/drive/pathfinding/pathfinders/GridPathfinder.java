@@ -0,0 +1,1257 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.commands.drive.pathfinding.ObstacleTrack;
+import frc.robot.commands.drive.pathfinding.Pathfinder2;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Everything the navgrid based pathfinders have in common: loading and inflating the navgrid, the start/goal/obstacle
+ * requests, the background planning thread, edge costs, and turning a path of grid nodes into PathPlanner waypoints.
+ * <p>
+ * Subclasses implement the search itself in {@link #plan()}, which the planning thread calls whenever it is woken up,
+ * and must call {@link #startPlanningThread()} once they are fully constructed.
+ */
+public abstract class GridPathfinder implements Pathfinder2 {
+	/**
+	 * Just below the default priority, so that a long search yields to the main robot loop instead of competing with it
+	 */
+	public static final int DEFAULT_PLANNING_THREAD_PRIORITY = Thread.NORM_PRIORITY - 1;
+	/**
+	 * How far the hand-drawn obstacles in navgrid.json already reach past the real field elements, in meters.
+	 * The static obstacles get inflated by the rest of the robot's half-diagonal, so lower this as the navgrid gets drawn tighter.
+	 */
+	private static final double NAVGRID_DRAWN_MARGIN = 0.5;
+	/**
+	 * Within this many meters of the inflated obstacles, moves get more expensive the closer they get, so paths only hug
+	 * field elements when going around them would be much longer
+	 */
+	private static final double SOFT_CLEARANCE_BAND = 0.6;
+	/**
+	 * How much more a move costs right next to an inflated obstacle, as a fraction of its length. Fades to 0 across {@link #SOFT_CLEARANCE_BAND}.
+	 */
+	private static final double SOFT_CLEARANCE_WEIGHT = 0.5;
+	/**
+	 * How much of each new measurement goes into the {@link #getPlanningLatency() planning latency} estimate
+	 */
+	private static final double LATENCY_SMOOTHING = 0.2;
+	private static final long NO_PENDING_REQUEST = Long.MIN_VALUE;
+	/**
+	 * The average speed the robot is assumed to drive along a path at, in meters per second, to tell when it will be
+	 * where relative to the {@link ReservationTable predicted obstacles}
+	 */
+	private static final double SPACE_TIME_SPEED = 2.0;
+	/**
+	 * How much wider each side of a tracked obstacle's predicted bounding box gets per second ahead, in meters, since
+	 * other robots don't keep going in a straight line
+	 */
+	private static final double TRACK_UNCERTAINTY_GROWTH = 0.3;
+	private static final double GRAVITY = 9.81;
+	protected final ReadWriteLock pathLock = new ReentrantReadWriteLock();
+	protected final ReadWriteLock requestLock = new ReentrantReadWriteLock();
+	private final Thread planningThread;
+	private volatile boolean running = true;
+	protected final double fieldLength;
+	protected final double fieldWidth;
+	protected final double nodeSize;
+	protected final int nodesX;
+	protected final int nodesY;
+	protected final ObstacleGrid staticObstacles;
+	/**
+	 * Extra cost per meter of moving through each node, from its clearance to the static obstacles. Never negative, so a
+	 * straight line distance heuristic stays admissible.
+	 */
+	private final float[] clearancePenalty;
+	/**
+	 * The closest node to each node that's clear of the static obstacles, or null if there is none. Free nodes map to themselves.
+	 */
+	private final GridPosition[] closestStaticNonObstacle;
+	/**
+	 * Cost-to-go fields over the static obstacles, by goal node
+	 */
+	private final Map<Integer, CostToGoField> costToGoFields = new ConcurrentHashMap<>();
+	private ObstacleGrid dynamicObstacles;
+	/**
+	 * Where the tracked obstacles will be, or null if there are none
+	 */
+	private volatile ReservationTable reservations = null;
+	protected volatile ObstacleGrid requestObstacles;
+	protected GridPosition requestStart;
+	protected Translation2d requestRealStartPos;
+	protected GridPosition requestGoal;
+	protected Translation2d requestRealGoalPos;
+	protected volatile boolean newPathAvailable = false;
+	/**
+	 * When the start or goal last changed, in {@link System#nanoTime()}, until the first path for it is published
+	 */
+	private final AtomicLong pendingRequestTime = new AtomicLong(NO_PENDING_REQUEST);
+	private volatile double planningLatency = 0;
+	/**
+	 * The radius the robot can turn at full speed, which the corners of the paths are rounded to where they fit. Infinite
+	 * until {@link #setTurnLimits(RobotConfig, PathConstraints)} is called, making the corners as round as they fit.
+	 */
+	private volatile double turnRadius = Double.POSITIVE_INFINITY;
+	private final LongAdder expansions = new LongAdder();
+	protected List<Waypoint> currentWaypoints = new ArrayList<>();
+	protected List<GridPosition> currentPathFull = new ArrayList<>();
+	/**
+	 * Every node of the space-time detour the current waypoints take around the predicted obstacles instead of
+	 * {@link #currentPathFull}, or empty if they follow it
+	 */
+	private List<GridPosition> currentDetour = new ArrayList<>();
+
+	/**
+	 * Loads the navgrid and creates (but doesn't start) the planning thread
+	 *
+	 * @param threadName             The name of the planning thread
+	 * @param planningThreadPriority The {@link Thread#setPriority(int) priority} of the planning thread,
+	 *                               between {@link Thread#MIN_PRIORITY} and {@link Thread#MAX_PRIORITY}
+	 */
+	protected GridPathfinder(String threadName, int planningThreadPriority) {
+		planningThread = new Thread(this::runThread);
+		planningThread.setDaemon(true);
+		planningThread.setName(threadName);
+		planningThread.setPriority(planningThreadPriority);
+
+		requestStart = new GridPosition(0, 0);
+		requestRealStartPos = Translation2d.kZero;
+		requestGoal = new GridPosition(0, 0);
+		requestRealGoalPos = Translation2d.kZero;
+
+		NavGrid navGrid;
+		try {
+			navGrid = NavGrid.load(Filesystem.getDeployDirectory());
+		} catch (Exception e) {
+			DriverStation.reportError("Couldn't load the navgrid, pathfinding will ignore field obstacles: " + e.getMessage(), true);
+			navGrid = NavGrid.empty(0.2, 16.54, 8.02);
+		}
+		nodeSize = navGrid.nodeSize();
+		fieldLength = navGrid.fieldLength();
+		fieldWidth = navGrid.fieldWidth();
+		nodesX = navGrid.obstacles().nodesX();
+		nodesY = navGrid.obstacles().nodesY();
+
+		double inflationRadius = 0;
+		try {
+			inflationRadius = Math.max(NavGrid.readRobotHalfDiagonal(Filesystem.getDeployDirectory()) - NAVGRID_DRAWN_MARGIN, 0);
+		} catch (Exception e) {
+			DriverStation.reportError("Couldn't read the robot size, pathfinding obstacles won't be inflated: " + e.getMessage(), true);
+		}
+
+		staticObstacles = navGrid.inflatedObstacles(inflationRadius);
+		clearancePenalty = new float[nodesX * nodesY];
+		for (int i = 0; i < clearancePenalty.length; i++) {
+			double extraClearance = navGrid.edgeClearance(i) - inflationRadius;
+			clearancePenalty[i] = (float) (SOFT_CLEARANCE_WEIGHT * Math.max(0, 1 - extraClearance / SOFT_CLEARANCE_BAND));
+		}
+		closestStaticNonObstacle = new GridPosition[nodesX * nodesY];
+		for (int x = 0; x < nodesX; x++) {
+			for (int y = 0; y < nodesY; y++) {
+				closestStaticNonObstacle[x * nodesY + y] = searchClosestNonObstacle(new GridPosition(x, y), staticObstacles);
+			}
+		}
+
+		dynamicObstacles = ObstacleGrid.empty(nodesX, nodesY);
+		requestObstacles = staticObstacles;
+	}
+
+	/**
+	 * Starts the planning thread. Must be called at the end of the subclass constructor, since the thread immediately starts calling {@link #plan()}.
+	 */
+	protected final void startPlanningThread() {
+		planningThread.start();
+	}
+
+	/**
+	 * Does one round of planning on the planning thread: reads the current requests, searches, and publishes a path with
+	 * {@link #publishPath(List, Translation2d, Translation2d, ObstacleGrid)} if there is a new one.
+	 *
+	 * @return False if there was nothing to do, in which case the thread waits until the next request
+	 */
+	protected abstract boolean plan();
+
+	/**
+	 * Called on the planning thread when {@link #plan()} throws. The planner should make sure its next {@link #plan()}
+	 * starts over from scratch.
+	 */
+	protected abstract void onPlanningError(Exception e);
+
+	/**
+	 * Called with the request write lock held whenever the start node changes
+	 */
+	protected abstract void onStartChanged();
+
+	/**
+	 * Called with the request write lock held whenever a new goal is set
+	 */
+	protected abstract void onGoalChanged();
+
+	/**
+	 * Get if a new path has been calculated since the last time a path was retrieved
+	 *
+	 * @return True if a new path is available
+	 */
+	@Override
+	public boolean isNewPathAvailable() {
+		return newPathAvailable;
+	}
+
+	/**
+	 * @return The total number of nodes the planner's searches have expanded so far, for comparing planners
+	 */
+	public long getExpansionCount() {
+		return expansions.sum();
+	}
+
+	/**
+	 * Adds to {@link #getExpansionCount()}. Planners call this once per search rather than once per node.
+	 */
+	protected void countExpansions(long count) {
+		expansions.add(count);
+	}
+
+	/**
+	 * Get the most recently calculated path
+	 *
+	 * @param constraints  The path constraints to use when creating the path
+	 * @param goalEndState The goal end state to use when creating the path
+	 * @return The PathPlannerPath created from the points calculated by the pathfinder
+	 */
+	@Override
+	public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+		newPathAvailable = false;
+		return getCurrentPathWithoutUpdate(constraints, goalEndState);
+	}
+
+	@Override
+	public PathPlannerPath getCurrentPathWithoutUpdate(PathConstraints constraints, GoalEndState goalEndState) {
+		List<Waypoint> waypoints;
+
+		pathLock.readLock().lock();
+		waypoints = new ArrayList<>(currentWaypoints);
+		pathLock.readLock().unlock();
+
+		if (waypoints.size() < 2) {
+			// Not enough points. Something got borked somewhere
+			return null;
+		}
+
+		return new PathPlannerPath(
+			waypoints,
+			constraints,
+			null,
+			goalEndState
+		);
+	}
+
+	/**
+	 * Set the start position to pathfind from
+	 *
+	 * @param startPosition Start position on the field. If this is within an obstacle it will be
+	 *                      moved to the nearest non-obstacle node.
+	 */
+	@Override
+	public void setStartPosition(Translation2d startPosition) {
+		updateStart(startPosition);
+	}
+
+	private void updateStart(Translation2d startPosition) {
+		GridPosition startPos = findClosestNonObstacle(getGridPos(startPosition), requestObstacles);
+
+		if (startPos != null && !startPos.equals(requestStart)) {
+			requestLock.writeLock().lock();
+			requestStart = startPos;
+			requestRealStartPos = startPosition;
+			pendingRequestTime.set(System.nanoTime());
+
+			onStartChanged();
+			newPathAvailable = false;
+			requestLock.writeLock().unlock();
+
+			wakePlanner();
+		}
+	}
+
+	/**
+	 * Set the start position to pathfind from, predicted ahead by the {@link #getPlanningLatency() planning latency}, so
+	 * the path starts where the robot will be once it's published instead of where it was when it was requested
+	 *
+	 * @param startPosition         The robot's current position on the field
+	 * @param fieldRelativeVelocity The robot's current field-relative velocity, in meters per second
+	 */
+	@Override
+	public void setStartState(Translation2d startPosition, Translation2d fieldRelativeVelocity) {
+		Translation2d predicted = startPosition.plus(fieldRelativeVelocity.times(planningLatency));
+		predicted = new Translation2d(
+			MathUtil.clamp(predicted.getX(), 0, fieldLength),
+			MathUtil.clamp(predicted.getY(), 0, fieldWidth));
+
+		GridPosition predictedPos = getGridPos(predicted);
+		if (requestObstacles.isObstacle(predictedPos.x, predictedPos.y)) {
+			// The robot won't actually drive into it, so the prediction is no better than where it is now
+			predicted = startPosition;
+		}
+		updateStart(predicted);
+	}
+
+	/**
+	 * A running average of how long it takes from a new start or goal being set until the first path for it is published
+	 *
+	 * @return The latency in seconds, or 0 before any path has been published
+	 */
+	public double getPlanningLatency() {
+		return planningLatency;
+	}
+
+	/**
+	 * Rounds the corners of the paths no tighter than the robot can take at full speed, where they fit. The trajectory
+	 * generator slows down to {@code sqrt(acceleration * radius)} through a turn, so rounder corners are faster.
+	 *
+	 * @param robotConfig The robot configuration, which limits the speed and the grip for turning further. May be null.
+	 * @param constraints The constraints the paths will be followed with
+	 */
+	public void setTurnLimits(RobotConfig robotConfig, PathConstraints constraints) {
+		double velocity = constraints.maxVelocityMPS();
+		double acceleration = constraints.maxAccelerationMPSSq();
+		if (robotConfig != null) {
+			velocity = Math.min(velocity, robotConfig.moduleConfig.maxDriveVelocityMPS);
+			acceleration = Math.min(acceleration, robotConfig.moduleConfig.wheelCOF * GRAVITY);
+		}
+		turnRadius = velocity * velocity / acceleration;
+	}
+
+	/**
+	 * Set the goal position to pathfind to
+	 *
+	 * @param goalPosition Goal position on the field. f this is within an obstacle it will be moved
+	 *                     to the nearest non-obstacle node.
+	 */
+	@Override
+	public void setGoalPosition(Translation2d goalPosition) {
+		GridPosition gridPos = findClosestNonObstacle(getGridPos(goalPosition), requestObstacles);
+
+		if (gridPos != null) {
+			requestLock.writeLock().lock();
+			requestGoal = gridPos;
+			requestRealGoalPos = goalPosition;
+			pendingRequestTime.set(System.nanoTime());
+
+			onGoalChanged();
+			newPathAvailable = false;
+			requestLock.writeLock().unlock();
+
+			wakePlanner();
+		}
+	}
+
+	/**
+	 * Set the dynamic obstacles that should be avoided while pathfinding.
+	 *
+	 * @param obs             A List of Translation2d pairs representing obstacles. Each Translation2d represents
+	 *                        opposite corners of a bounding box.
+	 * @param currentRobotPos The current position of the robot. This is needed to change the start
+	 *                        position of the path if the robot is now within an obstacle.
+	 */
+	@Override
+	public void setDynamicObstacles(
+		List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+		boolean hadReservations = reservations != null;
+		reservations = null;
+		if (!updateDynamicObstacles(obs, currentRobotPos) && hadReservations) {
+			replanForReservations();
+		}
+	}
+
+	/**
+	 * Set moving obstacles to avoid, such as other robots. Paths avoid where each one is predicted to be by the time the
+	 * robot gets there, rather than where it is now, using a {@link ReservationTable}. Replaces any
+	 * {@link #setDynamicObstacles(List, Translation2d) dynamic obstacles}.
+	 * <p>
+	 * The planners themselves only plan around the field elements. Whenever a path would run into a predicted obstacle,
+	 * a space-time search replaces it with one that goes around.
+	 *
+	 * @param tracks          The obstacles' bounding boxes right now, and their velocities
+	 * @param currentRobotPos The current position of the robot
+	 */
+	@Override
+	public void setObstacleTracks(List<ObstacleTrack> tracks, Translation2d currentRobotPos) {
+		long now = System.nanoTime();
+		ObstacleGrid[] slices = new ObstacleGrid[ReservationTable.sliceCount()];
+		for (int i = 0; i < slices.length; i++) {
+			double sliceStart = i * ReservationTable.SLICE_SECONDS;
+			double sliceEnd = sliceStart + ReservationTable.SLICE_SECONDS;
+			double growth = TRACK_UNCERTAINTY_GROWTH * sliceEnd;
+			ObstacleGrid.Builder slice = new ObstacleGrid.Builder(nodesX, nodesY);
+			for (ObstacleTrack track : tracks) {
+				// Everything the box sweeps over between the start and the end of the slice
+				ObstacleTrack first = track.predict(sliceStart);
+				ObstacleTrack last = track.predict(sliceEnd);
+				double minX = Math.min(Math.min(first.corner1().getX(), first.corner2().getX()), Math.min(last.corner1().getX(), last.corner2().getX()));
+				double maxX = Math.max(Math.max(first.corner1().getX(), first.corner2().getX()), Math.max(last.corner1().getX(), last.corner2().getX()));
+				double minY = Math.min(Math.min(first.corner1().getY(), first.corner2().getY()), Math.min(last.corner1().getY(), last.corner2().getY()));
+				double maxY = Math.max(Math.max(first.corner1().getY(), first.corner2().getY()), Math.max(last.corner1().getY(), last.corner2().getY()));
+				GridPosition min = getGridPos(new Translation2d(minX - growth, minY - growth));
+				GridPosition max = getGridPos(new Translation2d(maxX + growth, maxY + growth));
+				slice.setRect(min.x, min.y, max.x, max.y);
+			}
+			slices[i] = slice.build();
+		}
+
+		reservations = new ReservationTable(slices, now);
+		if (!updateDynamicObstacles(new ArrayList<>(), currentRobotPos)) {
+			replanForReservations();
+		}
+	}
+
+	/**
+	 * Has the planner publish its path again without a new obstacle snapshot, so it's checked against the new
+	 * reservations
+	 */
+	private void replanForReservations() {
+		requestLock.writeLock().lock();
+		onStartChanged();
+		requestLock.writeLock().unlock();
+		wakePlanner();
+	}
+
+	/**
+	 * @return False if the obstacles are the same as before, in which case the previous snapshot is kept so the planners
+	 * don't repair against a grid that didn't change
+	 */
+	private boolean updateDynamicObstacles(List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+		ObstacleGrid.Builder newObs = new ObstacleGrid.Builder(nodesX, nodesY);
+
+		for (var obstacle : obs) {
+			var gridPos1 = getGridPos(obstacle.getFirst());
+			var gridPos2 = getGridPos(obstacle.getSecond());
+
+			int minX = Math.min(gridPos1.x, gridPos2.x);
+			int maxX = Math.max(gridPos1.x, gridPos2.x);
+
+			int minY = Math.min(gridPos1.y, gridPos2.y);
+			int maxY = Math.max(gridPos1.y, gridPos2.y);
+
+			newObs.setRect(minX, minY, maxX, maxY);
+		}
+
+		dynamicObstacles = newObs.build();
+		ObstacleGrid obstacles = dynamicObstacles.toBuilder().or(staticObstacles).build();
+		requestLock.writeLock().lock();
+		if (obstacles.sameObstacles(requestObstacles)) {
+			requestLock.writeLock().unlock();
+			return false;
+		}
+		requestObstacles = obstacles;
+		requestLock.writeLock().unlock();
+		wakePlanner();
+
+		pathLock.readLock().lock();
+		boolean recalculate = blocked(currentPathFull, obstacles) || blocked(currentDetour, obstacles);
+		pathLock.readLock().unlock();
+
+		if (recalculate) {
+			// The planning thread picks up the new obstacles itself, we only need to make sure the robot isn't starting inside them
+			setStartPosition(currentRobotPos);
+		}
+
+		requestLock.readLock().lock();
+		boolean goalBlocked = obstacles.isObstacle(requestGoal.x, requestGoal.y);
+		requestLock.readLock().unlock();
+		if (goalBlocked) {
+			// Goal needs to move to the nearest free node
+			setGoalPosition(requestRealGoalPos);
+		}
+		return true;
+	}
+
+	private static boolean blocked(List<GridPosition> path, ObstacleGrid obstacles) {
+		for (GridPosition pos : path) {
+			if (obstacles.isObstacle(pos.x, pos.y)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Wakes the planning thread up if it is waiting for work. Must be called after every request change.
+	 * If the thread isn't waiting, its next wait returns immediately instead, so a request can never be missed.
+	 */
+	protected final void wakePlanner() {
+		LockSupport.unpark(planningThread);
+	}
+
+	/**
+	 * Stops the planning thread once it finishes the pass it's in, and waits for it. The pathfinder doesn't plan anymore
+	 * afterward.
+	 */
+	public void shutdown() {
+		running = false;
+		wakePlanner();
+		try {
+			planningThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void runThread() {
+		while (running) {
+			try {
+				if (!plan()) {
+					// Nothing to do until a request comes in. Spurious wakeups just go around the loop again
+					LockSupport.park(this);
+				}
+			} catch (Exception e) {
+				// Something messed up. Start over and hope for the best
+				onPlanningError(e);
+			}
+		}
+	}
+
+	/**
+	 * Computes the cost-to-go fields for goals that will be pathfound to over and over, like the starts of the pre-planned
+	 * paths. Once a goal has one, {@link #estimateCostToGo(Translation2d, Translation2d, ObstacleGrid)} is a lookup, and planners can
+	 * follow it straight to the goal instead of searching unless a dynamic obstacle is in the way.
+	 * <p>
+	 * Each field is a full Dijkstra over the navgrid, so call this off the main robot thread.
+	 *
+	 * @param goals Goal positions on the field, mapped to nodes the same way {@link #setGoalPosition(Translation2d)} does
+	 */
+	public void precomputeCostToGo(Collection<Translation2d> goals) {
+		for (Translation2d goal : goals) {
+			GridPosition goalPos = findClosestNonObstacle(clampToGrid(getGridPos(goal)), staticObstacles);
+			if (goalPos != null) {
+				costToGoFields.computeIfAbsent(index(goalPos), this::computeCostToGo);
+			}
+		}
+	}
+
+	/**
+	 * Looks up how expensive it is to drive between two positions, if the goal has a
+	 * {@link #precomputeCostToGo(Collection) precomputed} field and the path it leads along is clear of the obstacles.
+	 * Like the planners, that path is then taken to be the best one, since dynamic obstacles only make every other path
+	 * more expensive. Safe to call from any thread.
+	 *
+	 * @param obstacles The obstacles the path has to be clear of, e.g. from {@link #getObstacleSnapshot()}
+	 * @return The cost in meters, like {@link #planCost}. Infinity if the goal can't be reached from the start, NaN if
+	 * the goal has no field or something is in the way of its path, so it has to be planned instead.
+	 */
+	public double estimateCostToGo(Translation2d from, Translation2d goal, ObstacleGrid obstacles) {
+		GridPosition goalPos = findClosestNonObstacle(clampToGrid(getGridPos(goal)), staticObstacles);
+		CostToGoField field = goalPos == null ? null : costToGoFields.get(index(goalPos));
+		if (field == null) {
+			return Double.NaN;
+		}
+
+		GridPosition fromPos = findClosestNonObstacle(clampToGrid(getGridPos(from)), obstacles);
+		if (fromPos == null) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double cost = field.costToGo(index(fromPos));
+		if (Double.isInfinite(cost)) {
+			return cost;
+		}
+		return followCostToGo(field, fromPos, obstacles) != null ? cost * nodeSize : Double.NaN;
+	}
+
+	/**
+	 * Estimates how expensive it is to drive from one position to each of several goals around the current obstacles,
+	 * including dynamic ones. All the goals share a single Dijkstra search outward from the start, which stops as soon as
+	 * the last of them is reached. Safe to call from any thread.
+	 *
+	 * @return The cost to each goal in meters, i.e. the path length scaled up near obstacles the same way the planners do.
+	 * Infinity for goals that can't be reached.
+	 */
+	public double[] estimateCostsToGo(Translation2d from, List<Translation2d> goals) {
+		ObstacleGrid obstacles = requestObstacles;
+		double[] costs = new double[goals.size()];
+		Arrays.fill(costs, Double.POSITIVE_INFINITY);
+		GridPosition fromPos = findClosestNonObstacle(clampToGrid(getGridPos(from)), obstacles);
+		if (fromPos == null) {
+			return costs;
+		}
+
+		int[] goalNodes = new int[goals.size()];
+		boolean[] isGoal = new boolean[nodesX * nodesY];
+		int remaining = 0;
+		for (int i = 0; i < goals.size(); i++) {
+			GridPosition goalPos = findClosestNonObstacle(clampToGrid(getGridPos(goals.get(i))), obstacles);
+			goalNodes[i] = goalPos == null ? -1 : index(goalPos);
+			if (goalPos != null && !isGoal[goalNodes[i]]) {
+				isGoal[goalNodes[i]] = true;
+				remaining++;
+			}
+		}
+
+		double[] dist = new double[nodesX * nodesY];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		IndexedMinHeap open = new IndexedMinHeap(dist.length);
+		int start = index(fromPos);
+		dist[start] = 0;
+		open.insertOrUpdate(start, 0, 0);
+		while (remaining > 0 && !open.isEmpty()) {
+			int s = open.peek();
+			open.remove(s);
+			if (isGoal[s]) {
+				remaining--;
+			}
+
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if ((x != sx || y != sy) && inBounds(x, y)) {
+						int neighbor = x * nodesY + y;
+						double newDist = dist[s] + cost(sx, sy, x, y, obstacles);
+						if (newDist < dist[neighbor]) {
+							dist[neighbor] = newDist;
+							open.insertOrUpdate(neighbor, newDist, 0);
+						}
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < goals.size(); i++) {
+			if (goalNodes[i] != -1) {
+				costs[i] = dist[goalNodes[i]] * nodeSize;
+			}
+		}
+		return costs;
+	}
+
+	/**
+	 * @return The current obstacles, including dynamic ones. Immutable, so any number of threads can plan around it at once.
+	 */
+	public ObstacleGrid getObstacleSnapshot() {
+		return requestObstacles;
+	}
+
+	/**
+	 * Plans from one position to another with A* on the calling thread. Every call has its own search state, so calls can
+	 * run in parallel.
+	 *
+	 * @param obstacles The obstacles to plan around, e.g. from {@link #getObstacleSnapshot()}
+	 * @param maxCost   Checked as the search goes. Once every path that is left would cost more than this many meters,
+	 *                  the search gives up, so a candidate that can no longer beat the best one so far stops early.
+	 * @return The cost of the path in meters, like {@link #estimateCostsToGo(Translation2d, List)}. Infinity if the goal
+	 * can't be reached, or can't be reached within {@code maxCost}.
+	 */
+	public double planCost(Translation2d from, Translation2d goal, ObstacleGrid obstacles, DoubleSupplier maxCost) {
+		GridPosition fromPos = findClosestNonObstacle(clampToGrid(getGridPos(from)), obstacles);
+		GridPosition goalPos = findClosestNonObstacle(clampToGrid(getGridPos(goal)), obstacles);
+		if (fromPos == null || goalPos == null) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		int start = index(fromPos);
+		int target = index(goalPos);
+		double[] dist = new double[nodesX * nodesY];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		IndexedMinHeap open = new IndexedMinHeap(dist.length);
+		dist[start] = 0;
+		open.insertOrUpdate(start, distance(start, target), 0);
+
+		double bound = maxCost.getAsDouble() / nodeSize;
+		int expansions = 0;
+		while (!open.isEmpty()) {
+			int s = open.peek();
+			if (s == target) {
+				return dist[s] * nodeSize;
+			}
+			if ((++expansions & 63) == 0) {
+				bound = maxCost.getAsDouble() / nodeSize;
+			}
+			if (open.key1(s) > bound) {
+				return Double.POSITIVE_INFINITY;
+			}
+			open.remove(s);
+
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if ((x != sx || y != sy) && inBounds(x, y)) {
+						int neighbor = x * nodesY + y;
+						double newDist = dist[s] + cost(sx, sy, x, y, obstacles);
+						if (newDist < dist[neighbor]) {
+							dist[neighbor] = newDist;
+							open.insertOrUpdate(neighbor, newDist + distance(neighbor, target), -newDist);
+						}
+					}
+				}
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return The precomputed cost-to-go field of a goal node, or null if it doesn't have one
+	 */
+	protected CostToGoField costToGoField(int goal) {
+		return costToGoFields.get(goal);
+	}
+
+	/**
+	 * Walks down a cost-to-go field from the start to its goal. That is the optimal path around the static obstacles, and
+	 * since dynamic obstacles can only make other paths more expensive, it is still optimal if no dynamic obstacle blocks it.
+	 * O(path length).
+	 *
+	 * @param obstacles The current obstacles, including dynamic ones
+	 * @return The path from start to goal, empty if they are the same node, or null if the path is blocked or the goal is unreachable
+	 */
+	protected List<GridPosition> followCostToGo(CostToGoField field, GridPosition start, ObstacleGrid obstacles) {
+		int s = index(start);
+		if (s == field.goal()) {
+			return new ArrayList<>();
+		}
+		if (Double.isInfinite(field.costToGo(s))) {
+			return null;
+		}
+
+		List<GridPosition> path = new ArrayList<>();
+		path.add(start);
+		// Every step strictly lowers the cost-to-go, the bound just keeps a corrupted field from looping forever
+		for (int step = 0; step < nodesX * nodesY && s != field.goal(); step++) {
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			int best = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if ((x != sx || y != sy) && inBounds(x, y)) {
+						double c = field.costToGo(x * nodesY + y) + cost(sx, sy, x, y, staticObstacles);
+						if (c < bestCost) {
+							bestCost = c;
+							best = x * nodesY + y;
+						}
+					}
+				}
+			}
+			if (best == -1 || Double.isInfinite(cost(sx, sy, best / nodesY, best % nodesY, obstacles))) {
+				return null;
+			}
+			s = best;
+			path.add(new GridPosition(s / nodesY, s % nodesY));
+		}
+		return s == field.goal() ? path : null;
+	}
+
+	/**
+	 * Dijkstra outward from the goal over the static obstacles
+	 */
+	private CostToGoField computeCostToGo(int goal) {
+		return computeCostToGo(goal, staticObstacles);
+	}
+
+	/**
+	 * Computes a cost-to-go field with a backward Dijkstra search from the goal
+	 */
+	protected CostToGoField computeCostToGo(int goal, ObstacleGrid obstacles) {
+		double[] dist = new double[nodesX * nodesY];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		IndexedMinHeap open = new IndexedMinHeap(dist.length);
+
+		dist[goal] = 0;
+		open.insertOrUpdate(goal, 0, 0);
+		while (!open.isEmpty()) {
+			int s = open.peek();
+			open.remove(s);
+
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if ((x != sx || y != sy) && inBounds(x, y)) {
+						int neighbor = x * nodesY + y;
+						double newDist = dist[s] + cost(sx, sy, x, y, obstacles);
+						if (newDist < dist[neighbor]) {
+							dist[neighbor] = newDist;
+							open.insertOrUpdate(neighbor, newDist, 0);
+						}
+					}
+				}
+			}
+		}
+
+		float[] costToGo = new float[dist.length];
+		for (int i = 0; i < dist.length; i++) {
+			costToGo[i] = (float) dist[i];
+		}
+		return new CostToGoField(goal, costToGo);
+	}
+
+	/**
+	 * Turns a path of grid nodes into waypoints and makes it the current path. If it runs into a predicted obstacle, the
+	 * waypoints take a space-time detour instead, but the search's path stays the current path, so planners can still
+	 * tell whether a new one is any different.
+	 */
+	protected void publishPath(
+		List<GridPosition> pathPositions,
+		Translation2d realStartPos,
+		Translation2d realGoalPos,
+		ObstacleGrid obstacles) {
+		ReservationTable table = reservations;
+		if (table != null && pathPositions.size() >= 2 && crossesReservation(pathPositions, table)) {
+			double startTime = table.age();
+			List<GridPosition> detour = planSpaceTime(
+				pathPositions.get(0), pathPositions.get(pathPositions.size() - 1), startTime, obstacles, table);
+			if (detour != null) {
+				List<GridPosition> vertices = simplifySpaceTime(detour, startTime, obstacles, table);
+				publishWaypoints(pathPositions, detour, createWaypoints(vertices, realStartPos, realGoalPos, obstacles, false));
+				return;
+			}
+		}
+
+		publishWaypoints(pathPositions, createWaypoints(pathPositions, realStartPos, realGoalPos, obstacles, true));
+	}
+
+	/**
+	 * Makes a path the current path, for planners that build their own waypoints
+	 *
+	 * @param pathPositions The nodes the path passes through
+	 */
+	protected void publishWaypoints(List<GridPosition> pathPositions, List<Waypoint> waypoints) {
+		publishWaypoints(pathPositions, new ArrayList<>(), waypoints);
+	}
+
+	/**
+	 * @param detour Every node of the detour the waypoints take instead of the path, or empty if they follow it
+	 */
+	private void publishWaypoints(List<GridPosition> pathPositions, List<GridPosition> detour, List<Waypoint> waypoints) {
+		pathLock.writeLock().lock();
+		currentPathFull = pathPositions;
+		currentDetour = detour;
+		currentWaypoints = waypoints;
+		pathLock.writeLock().unlock();
+
+		long requestTime = pendingRequestTime.getAndSet(NO_PENDING_REQUEST);
+		if (requestTime != NO_PENDING_REQUEST) {
+			double latency = (System.nanoTime() - requestTime) / 1e9;
+			planningLatency += LATENCY_SMOOTHING * (latency - planningLatency);
+		}
+
+		newPathAvailable = true;
+	}
+
+	/**
+	 * @return True if driving the path from now at {@link #SPACE_TIME_SPEED} would run into a predicted obstacle
+	 */
+	private boolean crossesReservation(List<GridPosition> path, ReservationTable table) {
+		double time = table.age();
+		for (int i = 1; i < path.size() && time < ReservationTable.HORIZON_SECONDS; i++) {
+			GridPosition from = path.get(i - 1);
+			GridPosition to = path.get(i);
+			if (segmentReserved(from, to, time, table)) {
+				return true;
+			}
+			time += Math.hypot(to.x - from.x, to.y - from.y) * nodeSize / SPACE_TIME_SPEED;
+		}
+		return false;
+	}
+
+	/**
+	 * @param startTime When the robot leaves the first node, in seconds since the obstacles were measured
+	 * @return True if a predicted obstacle touches the straight line between two nodes while the robot drives along it
+	 */
+	private boolean segmentReserved(GridPosition from, GridPosition to, double startTime, ReservationTable table) {
+		double length = Math.hypot(to.x - from.x, to.y - from.y);
+		int samples = (int) Math.ceil(length * 2);
+		for (int i = 0; i <= samples; i++) {
+			double fraction = samples == 0 ? 0 : (double) i / samples;
+			int x = (int) Math.round(from.x + fraction * (to.x - from.x));
+			int y = (int) Math.round(from.y + fraction * (to.y - from.y));
+			if (table.isReserved(x, y, startTime + fraction * length * nodeSize / SPACE_TIME_SPEED)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Space-time A*. Every node is checked against the reservations at the time the robot would reach it, and the same
+	 * node reached during different time slices counts as a different state. The robot never waits in place, since a
+	 * path can't tell it to, so the way around a predicted obstacle is a detour.
+	 *
+	 * @param startTime When the robot leaves the start, in seconds since the obstacles were measured
+	 * @return Every node along the way, or null if there's no way around the predicted obstacles
+	 */
+	private List<GridPosition> planSpaceTime(
+		GridPosition start, GridPosition goal, double startTime, ObstacleGrid obstacles, ReservationTable table) {
+		int nodeCount = nodesX * nodesY;
+		int stateCount = nodeCount * (ReservationTable.sliceCount() + 1);
+		double[] cost = new double[stateCount];
+		double[] time = new double[stateCount];
+		int[] parent = new int[stateCount];
+		Arrays.fill(cost, Double.POSITIVE_INFINITY);
+		IndexedMinHeap open = new IndexedMinHeap(stateCount);
+
+		int target = index(goal);
+		int startState = table.slice(startTime) * nodeCount + index(start);
+		cost[startState] = 0;
+		time[startState] = startTime;
+		parent[startState] = startState;
+		open.insertOrUpdate(startState, distance(index(start), target), 0);
+
+		int expanded = 0;
+		while (!open.isEmpty()) {
+			int s = open.peek();
+			open.remove(s);
+			expanded++;
+
+			int node = s % nodeCount;
+			if (node == target) {
+				countExpansions(expanded);
+				List<GridPosition> path = new ArrayList<>();
+				for (int state = s; ; state = parent[state]) {
+					path.add(new GridPosition(state % nodeCount / nodesY, state % nodeCount % nodesY));
+					if (parent[state] == state) {
+						break;
+					}
+				}
+				Collections.reverse(path);
+				return path;
+			}
+
+			int sx = node / nodesY;
+			int sy = node % nodesY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if ((x == sx && y == sy) || !inBounds(x, y)) {
+						continue;
+					}
+					double moveCost = cost(sx, sy, x, y, obstacles);
+					double arrival = time[s] + Math.hypot(x - sx, y - sy) * nodeSize / SPACE_TIME_SPEED;
+					if (Double.isInfinite(moveCost) || table.isReserved(x, y, arrival)) {
+						continue;
+					}
+
+					int neighbor = x * nodesY + y;
+					int next = table.slice(arrival) * nodeCount + neighbor;
+					double newCost = cost[s] + moveCost;
+					if (newCost < cost[next]) {
+						cost[next] = newCost;
+						time[next] = arrival;
+						parent[next] = s;
+						open.insertOrUpdate(next, newCost + distance(neighbor, target), -newCost);
+					}
+				}
+			}
+		}
+
+		countExpansions(expanded);
+		return null;
+	}
+
+	/**
+	 * Skips the nodes of a space-time path that it can cut straight past, without cutting into a field element or
+	 * through where an obstacle will be
+	 *
+	 * @param startTime When the robot leaves the first node, in seconds since the obstacles were measured
+	 */
+	private List<GridPosition> simplifySpaceTime(List<GridPosition> path, double startTime, ObstacleGrid obstacles, ReservationTable table) {
+		List<GridPosition> simplified = new ArrayList<>();
+		simplified.add(path.get(0));
+		double anchorTime = startTime;
+		for (int i = 1; i < path.size() - 1; i++) {
+			GridPosition anchor = simplified.get(simplified.size() - 1);
+			GridPosition next = path.get(i + 1);
+			if (!walkable(anchor, next, obstacles) || segmentReserved(anchor, next, anchorTime, table)) {
+				GridPosition vertex = path.get(i);
+				anchorTime += Math.hypot(vertex.x - anchor.x, vertex.y - anchor.y) * nodeSize / SPACE_TIME_SPEED;
+				simplified.add(vertex);
+			}
+		}
+		simplified.add(path.get(path.size() - 1));
+		return simplified;
+	}
+
+	/**
+	 * @param simplify Whether to skip the nodes that the path can cut straight past. Off for paths that are already
+	 *                 simplified.
+	 */
+	private List<Waypoint> createWaypoints(
+		List<GridPosition> path,
+		Translation2d realStartPos,
+		Translation2d realGoalPos,
+		ObstacleGrid obstacles,
+		boolean simplify) {
+		if (path.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		List<GridPosition> simplifiedPath = new ArrayList<>();
+		simplifiedPath.add(path.get(0));
+		for (int i = 1; i < path.size() - 1; i++) {
+			if (!simplify || !walkable(simplifiedPath.get(simplifiedPath.size() - 1), path.get(i + 1), obstacles)) {
+				simplifiedPath.add(path.get(i));
+			}
+		}
+		simplifiedPath.add(path.get(path.size() - 1));
+
+		List<Translation2d> fieldPosPath = new ArrayList<>();
+		for (GridPosition pos : simplifiedPath) {
+			fieldPosPath.add(gridPosToTranslation2d(pos));
+		}
+
+		if (fieldPosPath.size() < 2) {
+			return new ArrayList<>();
+		}
+
+		// Replace start and end positions with their real positions
+		fieldPosPath.set(0, realStartPos);
+		fieldPosPath.set(fieldPosPath.size() - 1, realGoalPos);
+
+		return PathSmoother.smooth(fieldPosPath, turnRadius, obstacles, nodeSize);
+	}
+
+	/**
+	 * @return The closest node that isn't an obstacle: the fewest moves away, then the closest in a straight line. Null if
+	 * every node is an obstacle. Nodes off the grid are never obstacles, so they're returned as is.
+	 */
+	protected GridPosition findClosestNonObstacle(GridPosition pos, ObstacleGrid obstacles) {
+		if (!obstacles.isObstacle(pos.x, pos.y)) {
+			return pos;
+		}
+
+		// Every grid planned against has the static obstacles in it, so the closest node clear of those is the closest one
+		// clear of everything as long as nothing else is in the way
+		GridPosition closestStatic = closestStaticNonObstacle[index(pos)];
+		if (closestStatic != null && !obstacles.isObstacle(closestStatic.x, closestStatic.y)) {
+			return closestStatic;
+		}
+		return searchClosestNonObstacle(pos, obstacles);
+	}
+
+	/**
+	 * Checks the rings of nodes around a node from the inside out
+	 *
+	 * @see #findClosestNonObstacle(GridPosition, ObstacleGrid)
+	 */
+	private GridPosition searchClosestNonObstacle(GridPosition pos, ObstacleGrid obstacles) {
+		if (!obstacles.isObstacle(pos.x, pos.y)) {
+			return pos;
+		}
+
+		int maxRing = Math.max(Math.max(pos.x, nodesX - 1 - pos.x), Math.max(pos.y, nodesY - 1 - pos.y));
+		for (int ring = 1; ring <= maxRing; ring++) {
+			int closestX = -1;
+			int closestY = -1;
+			int closestDistanceSquared = Integer.MAX_VALUE;
+			for (int x = pos.x - ring; x <= pos.x + ring; x++) {
+				// The whole column at the sides of the ring, only the top and bottom in between
+				int yStep = x == pos.x - ring || x == pos.x + ring ? 1 : 2 * ring;
+				for (int y = pos.y - ring; y <= pos.y + ring; y += yStep) {
+					if (inBounds(x, y) && !obstacles.isObstacle(x, y)) {
+						int distanceSquared = (x - pos.x) * (x - pos.x) + (y - pos.y) * (y - pos.y);
+						if (distanceSquared < closestDistanceSquared) {
+							closestDistanceSquared = distanceSquared;
+							closestX = x;
+							closestY = y;
+						}
+					}
+				}
+			}
+			if (closestX >= 0) {
+				return new GridPosition(closestX, closestY);
+			}
+		}
+		return null;
+	}
+
+	protected boolean walkable(GridPosition s1, GridPosition s2, ObstacleGrid obstacles) {
+		int x0 = s1.x;
+		int y0 = s1.y;
+		int x1 = s2.x;
+		int y1 = s2.y;
+
+		int dx = Math.abs(x1 - x0);
+		int dy = Math.abs(y1 - y0);
+		int x = x0;
+		int y = y0;
+		int n = 1 + dx + dy;
+		int xInc = (x1 > x0) ? 1 : -1;
+		int yInc = (y1 > y0) ? 1 : -1;
+		int error = dx - dy;
+		dx *= 2;
+		dy *= 2;
+
+		for (; n > 0; n--) {
+			if (obstacles.isObstacle(x, y)) {
+				return false;
+			}
+
+			if (error > 0) {
+				x += xInc;
+				error -= dy;
+			} else if (error < 0) {
+				y += yInc;
+				error += dx;
+			} else {
+				x += xInc;
+				y += yInc;
+				error -= dy;
+				error += dx;
+				n--;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * The cost of moving between two neighboring nodes: the distance between them (in nodes), scaled up near obstacles
+	 *
+	 * @return The cost, or infinity if the move is blocked
+	 */
+	protected double cost(int x0, int y0, int x1, int y1, ObstacleGrid obstacles) {
+		if (isCollision(x0, y0, x1, y1, obstacles)) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		// Average the two ends so the cost is the same in both directions, which a backward search relies on
+		double penalty = 0.5 * (clearancePenalty[x0 * nodesY + y0] + clearancePenalty[x1 * nodesY + y1]);
+		return Math.hypot(x1 - x0, y1 - y0) * (1 + penalty);
+	}
+
+	/**
+	 * The cost of moving in a straight line between two nodes: its length (in nodes), scaled by the average clearance
+	 * penalty of every node it passes through. Touching the corner between two nodes counts as passing through both, so
+	 * like {@link #cost(int, int, int, int, ObstacleGrid)} this never lets a line cut the corner of an obstacle.
+	 *
+	 * @return The cost, or infinity if there is no line of sight
+	 */
+	protected double lineCost(int from, int to, ObstacleGrid obstacles) {
+		int x0 = from / nodesY;
+		int y0 = from % nodesY;
+		int x1 = to / nodesY;
+		int y1 = to % nodesY;
+
+		int dx = Math.abs(x1 - x0);
+		int dy = Math.abs(y1 - y0);
+		int x = x0;
+		int y = y0;
+		int n = 1 + dx + dy;
+		int xInc = (x1 > x0) ? 1 : -1;
+		int yInc = (y1 > y0) ? 1 : -1;
+		int error = dx - dy;
+		dx *= 2;
+		dy *= 2;
+
+		double penaltySum = 0;
+		int visited = 0;
+		for (; n > 0; n--) {
+			if (obstacles.isObstacle(x, y)) {
+				return Double.POSITIVE_INFINITY;
+			}
+			penaltySum += clearancePenalty(x * nodesY + y);
+			visited++;
+
+			if (error > 0) {
+				x += xInc;
+				error -= dy;
+			} else if (error < 0) {
+				y += yInc;
+				error += dx;
+			} else {
+				// Exactly through a corner
+				if (obstacles.isObstacle(x + xInc, y) || obstacles.isObstacle(x, y + yInc)) {
+					return Double.POSITIVE_INFINITY;
+				}
+				x += xInc;
+				y += yInc;
+				error -= dy;
+				error += dx;
+				n--;
+			}
+		}
+
+		return distance(from, to) * (1 + penaltySum / visited);
+	}
+
+	/**
+	 * The extra cost per unit of distance for moving through a node, in [0, {@value #SOFT_CLEARANCE_WEIGHT}]
+	 */
+	protected double clearancePenalty(int index) {
+		return clearancePenalty[index];
+	}
+
+	protected boolean isCollision(int x0, int y0, int x1, int y1, ObstacleGrid obstacles) {
+		if (obstacles.isObstacle(x0, y0) || obstacles.isObstacle(x1, y1)) {
+			return true;
+		}
+
+		if (x0 != x1 && y0 != y1) {
+			// Diagonal move, don't allow cutting the corner of an obstacle. The two cells that share both endpoints' edges are (x0, y1) and (x1, y0)
+			return obstacles.isObstacle(x0, y1) || obstacles.isObstacle(x1, y0);
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The straight line distance between two nodes, in nodes. Never more than the cost of any path between them.
+	 */
+	protected double distance(int s1, int s2) {
+		return Math.hypot(s2 / nodesY - s1 / nodesY, s2 % nodesY - s1 % nodesY);
+	}
+
+	protected boolean inBounds(int x, int y) {
+		return x >= 0 && x < nodesX && y >= 0 && y < nodesY;
+	}
+
+	protected GridPosition clampToGrid(GridPosition pos) {
+		return new GridPosition(Math.max(0, Math.min(pos.x, nodesX - 1)), Math.max(0, Math.min(pos.y, nodesY - 1)));
+	}
+
+	protected int index(GridPosition pos) {
+		return pos.x * nodesY + pos.y;
+	}
+
+	protected GridPosition getGridPos(Translation2d pos) {
+		int x = (int) Math.floor(pos.getX() / nodeSize);
+		int y = (int) Math.floor(pos.getY() / nodeSize);
+
+		return new GridPosition(x, y);
+	}
+
+	protected Translation2d gridPosToTranslation2d(GridPosition pos) {
+		return new Translation2d(
+			(pos.x * nodeSize) + (nodeSize / 2.0), (pos.y * nodeSize) + (nodeSize / 2.0));
+	}
+
+	/**
+	 * Represents a node in the pathfinding grid
+	 *
+	 * @param x X index in the grid
+	 * @param y Y index in the grid
+	 */
+	public record GridPosition(int x, int y) implements Comparable<GridPosition> {
+		@Override
+		public int compareTo(GridPosition o) {
+			if (x == o.x) {
+				return Integer.compare(y, o.y);
+			} else {
+				return Integer.compare(x, o.x);
+			}
+		}
+	}
+}
@@ -0,0 +1,539 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of HPA* (Botea, Mueller and Schaeffer, 2004) running locally in a background thread.
+ * <p>
+ * The navgrid is split into square clusters. Wherever two neighboring clusters share an open stretch of border, there are
+ * portal nodes on both sides of it, and the cheapest paths between the portals of each cluster are precomputed around the
+ * static obstacles, along with each portal's cost-to-go from every node of its cluster. A query searches that small
+ * portal graph, then refines the route on the full resolution grid by walking down the portals' cost-to-go, so nothing
+ * but the portal graph is ever searched.
+ * <p>
+ * Planning time grows with the length of the route rather than with the area of the field, so the navgrid can be made
+ * finer without planning getting slower at the same rate. If dynamic obstacles block the refined route, A* on the
+ * full resolution grid takes over, first within just the clusters along the route, and then over the whole grid.
+ */
+public class HierarchicalPathfinder extends GridPathfinder {
+	/**
+	 * The side length of a cluster in meters, rounded to a whole number of nodes
+	 */
+	private static final double CLUSTER_SIZE_METERS = 3.0;
+	/**
+	 * Open stretches of border at least this many nodes long get a portal at each end as well as in the middle, so routes
+	 * don't all have to funnel through one point
+	 */
+	private static final int LONG_ENTRANCE_NODES = 6;
+	/**
+	 * Goals within this many cluster widths of the start are planned to with plain A*
+	 */
+	private static final double NEARBY_CLUSTERS = 1.5;
+	private final int clusterSize;
+	private final int clustersY;
+	/**
+	 * Which clusters the grid search may expand into
+	 */
+	private final boolean[] allowedClusters;
+	// The portal graph, in compressed sparse row form: portal p's edges are edgeTo/edgeCost[edgeStart[p]] until edgeStart[p + 1]
+	private final int[] portalNodes;
+	private final int[][] clusterPortals;
+	private final int[] edgeStart;
+	private final int[] edgeTo;
+	private final double[] edgeCost;
+	/**
+	 * Each portal's cost-to-go from every node of its cluster, without leaving it, indexed by {@link #clusterLocal(int)}
+	 */
+	private final float[][] portalFields;
+	private final double[] portalToGoal;
+	/**
+	 * The portals along the route found by the last portal graph search, from start to goal
+	 */
+	private final int[] route;
+	private int routeLength;
+	// Grid search state
+	private final double[] g;
+	private final int[] parent;
+	private final int[] valueStamp;
+	private final int[] closedStamp;
+	private final IndexedMinHeap open;
+	private int generation = 0;
+	// Portal graph search state, with the start and goal as two extra nodes at the end
+	private final double[] portalG;
+	private final int[] portalParent;
+	private final int[] portalStamp;
+	private final IndexedMinHeap portalOpen;
+	private int portalGeneration = 0;
+	/**
+	 * The obstacles that the current path was planned around. Only touched by the planning thread.
+	 */
+	private ObstacleGrid plannedObstacles;
+	private boolean requestReplan = true;
+
+	/**
+	 * Create a new pathfinder that runs HPA* locally in a background thread
+	 */
+	public HierarchicalPathfinder() {
+		this(DEFAULT_PLANNING_THREAD_PRIORITY);
+	}
+
+	/**
+	 * Create a new pathfinder that runs HPA* locally in a background thread
+	 *
+	 * @param planningThreadPriority The {@link Thread#setPriority(int) priority} of the planning thread,
+	 *                               between {@link Thread#MIN_PRIORITY} and {@link Thread#MAX_PRIORITY}
+	 */
+	public HierarchicalPathfinder(int planningThreadPriority) {
+		super("HPA* Planning Thread", planningThreadPriority);
+
+		int nodeCount = nodesX * nodesY;
+		g = new double[nodeCount];
+		parent = new int[nodeCount];
+		valueStamp = new int[nodeCount];
+		closedStamp = new int[nodeCount];
+		open = new IndexedMinHeap(nodeCount);
+
+		clusterSize = Math.max(2, (int) Math.round(CLUSTER_SIZE_METERS / nodeSize));
+		int clustersX = (nodesX + clusterSize - 1) / clusterSize;
+		clustersY = (nodesY + clusterSize - 1) / clusterSize;
+		allowedClusters = new boolean[clustersX * clustersY];
+
+		// Portals and the edges between neighboring clusters
+		Map<Integer, Integer> portalIds = new LinkedHashMap<>();
+		List<Map<Integer, Double>> adjacency = new ArrayList<>();
+		for (int cx = 0; cx < clustersX; cx++) {
+			for (int cy = 0; cy < clustersY; cy++) {
+				int minX = cx * clusterSize;
+				int minY = cy * clusterSize;
+				int maxX = Math.min(minX + clusterSize, nodesX) - 1;
+				int maxY = Math.min(minY + clusterSize, nodesY) - 1;
+				if (maxX + 1 < nodesX) {
+					addEntrances(maxX, minY, 0, 1, maxY - minY + 1, 1, 0, portalIds, adjacency);
+				}
+				if (maxY + 1 < nodesY) {
+					addEntrances(minX, maxY, 1, 0, maxX - minX + 1, 0, 1, portalIds, adjacency);
+				}
+			}
+		}
+
+		int portalCount = portalIds.size();
+		portalNodes = new int[portalCount];
+		List<List<Integer>> portalsByCluster = new ArrayList<>();
+		for (int c = 0; c < allowedClusters.length; c++) {
+			portalsByCluster.add(new ArrayList<>());
+		}
+		for (Map.Entry<Integer, Integer> entry : portalIds.entrySet()) {
+			portalNodes[entry.getValue()] = entry.getKey();
+			portalsByCluster.get(clusterOf(entry.getKey())).add(entry.getValue());
+		}
+		clusterPortals = new int[allowedClusters.length][];
+		for (int c = 0; c < allowedClusters.length; c++) {
+			clusterPortals[c] = portalsByCluster.get(c).stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		// Edges between the portals of each cluster, and their cost-to-go fields
+		portalFields = new float[portalCount][];
+		for (int c = 0; c < allowedClusters.length; c++) {
+			allowOnly(c);
+			for (int p : clusterPortals[c]) {
+				searchGrid(portalNodes[p], -1, staticObstacles);
+				portalFields[p] = new float[clusterSize * clusterSize];
+				Arrays.fill(portalFields[p], Float.POSITIVE_INFINITY);
+				int minX = portalNodes[p] / nodesY / clusterSize * clusterSize;
+				int minY = portalNodes[p] % nodesY / clusterSize * clusterSize;
+				for (int x = minX; x < Math.min(minX + clusterSize, nodesX); x++) {
+					for (int y = minY; y < Math.min(minY + clusterSize, nodesY); y++) {
+						portalFields[p][clusterLocal(x * nodesY + y)] = (float) g(x * nodesY + y);
+					}
+				}
+				for (int q : clusterPortals[c]) {
+					if (q != p && !Double.isInfinite(g(portalNodes[q]))) {
+						adjacency.get(p).merge(q, g(portalNodes[q]), Math::min);
+					}
+				}
+			}
+		}
+
+		edgeStart = new int[portalCount + 1];
+		for (int p = 0; p < portalCount; p++) {
+			edgeStart[p + 1] = edgeStart[p] + adjacency.get(p).size();
+		}
+		edgeTo = new int[edgeStart[portalCount]];
+		edgeCost = new double[edgeStart[portalCount]];
+		for (int p = 0; p < portalCount; p++) {
+			int e = edgeStart[p];
+			for (Map.Entry<Integer, Double> edge : adjacency.get(p).entrySet()) {
+				edgeTo[e] = edge.getKey();
+				edgeCost[e] = edge.getValue();
+				e++;
+			}
+		}
+
+		portalToGoal = new double[portalCount];
+		route = new int[portalCount];
+		portalG = new double[portalCount + 2];
+		portalParent = new int[portalCount + 2];
+		portalStamp = new int[portalCount + 2];
+		portalOpen = new IndexedMinHeap(portalCount + 2);
+		plannedObstacles = staticObstacles;
+
+		startPlanningThread();
+	}
+
+	/**
+	 * Adds portals along one shared cluster border: the nodes (x + i * dx, y + i * dy) on one side, and the same nodes
+	 * offset by (ox, oy) on the other
+	 */
+	private void addEntrances(
+		int x, int y, int dx, int dy, int length, int ox, int oy,
+		Map<Integer, Integer> portalIds, List<Map<Integer, Double>> adjacency) {
+		int runStart = -1;
+		for (int i = 0; i <= length; i++) {
+			boolean open = i < length
+				&& !staticObstacles.isObstacle(x + i * dx, y + i * dy)
+				&& !staticObstacles.isObstacle(x + i * dx + ox, y + i * dy + oy);
+			if (open && runStart == -1) {
+				runStart = i;
+			} else if (!open && runStart != -1) {
+				int runEnd = i - 1;
+				if (runEnd - runStart + 1 >= LONG_ENTRANCE_NODES) {
+					addPortalPair(x + runStart * dx, y + runStart * dy, ox, oy, portalIds, adjacency);
+					addPortalPair(x + runEnd * dx, y + runEnd * dy, ox, oy, portalIds, adjacency);
+				}
+				int mid = (runStart + runEnd) / 2;
+				addPortalPair(x + mid * dx, y + mid * dy, ox, oy, portalIds, adjacency);
+				runStart = -1;
+			}
+		}
+	}
+
+	private void addPortalPair(int x, int y, int ox, int oy, Map<Integer, Integer> portalIds, List<Map<Integer, Double>> adjacency) {
+		int a = portalId(x * nodesY + y, portalIds, adjacency);
+		int b = portalId((x + ox) * nodesY + y + oy, portalIds, adjacency);
+		double c = cost(x, y, x + ox, y + oy, staticObstacles);
+		adjacency.get(a).merge(b, c, Math::min);
+		adjacency.get(b).merge(a, c, Math::min);
+	}
+
+	private static int portalId(int node, Map<Integer, Integer> portalIds, List<Map<Integer, Double>> adjacency) {
+		return portalIds.computeIfAbsent(node, n -> {
+			adjacency.add(new HashMap<>());
+			return adjacency.size() - 1;
+		});
+	}
+
+	@Override
+	protected void onStartChanged() {
+		requestReplan = true;
+	}
+
+	@Override
+	protected void onGoalChanged() {
+		requestReplan = true;
+	}
+
+	@Override
+	protected void onPlanningError(Exception e) {
+		requestLock.writeLock().lock();
+		requestReplan = true;
+		requestLock.writeLock().unlock();
+	}
+
+	@Override
+	protected boolean plan() {
+		requestLock.writeLock().lock();
+		GridPosition start = requestStart;
+		Translation2d realStart = requestRealStartPos;
+		GridPosition goal = requestGoal;
+		Translation2d realGoal = requestRealGoalPos;
+		ObstacleGrid obstacles = requestObstacles;
+		boolean replan = requestReplan || obstacles.version() != plannedObstacles.version();
+		requestReplan = false;
+		requestLock.writeLock().unlock();
+
+		if (!replan) {
+			return false;
+		}
+
+		plannedObstacles = obstacles;
+		publishPath(search(index(start), index(goal), obstacles), realStart, realGoal, obstacles);
+		return true;
+	}
+
+	/**
+	 * @return The path from start to goal, or an empty list if the goal can't be reached
+	 */
+	private List<GridPosition> search(int start, int goal, ObstacleGrid obstacles) {
+		if (start == goal) {
+			return new ArrayList<>();
+		}
+
+		// Nearby goals aren't worth going through the portals for, A* gets to them quickly and doesn't detour through portals
+		boolean hasRoute = distance(start, goal) > NEARBY_CLUSTERS * clusterSize && planRoute(start, goal);
+		if (hasRoute) {
+			List<GridPosition> path = refineRoute(start, goal, obstacles);
+			if (path != null) {
+				return path;
+			}
+
+			// A dynamic obstacle is in the way of the route, try to get around it without leaving the clusters along it
+			Arrays.fill(allowedClusters, false);
+			allowedClusters[clusterOf(start)] = true;
+			allowedClusters[clusterOf(goal)] = true;
+			for (int i = 0; i < routeLength; i++) {
+				allowedClusters[clusterOf(portalNodes[route[i]])] = true;
+			}
+			if (searchGrid(start, goal, obstacles)) {
+				return extractPath(start, goal);
+			}
+		}
+
+		Arrays.fill(allowedClusters, true);
+		if (searchGrid(start, goal, obstacles)) {
+			return extractPath(start, goal);
+		}
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Searches the portal graph around the static obstacles, leaving the portals along the way in {@link #route}
+	 *
+	 * @return False if the goal can't be reached through the portal graph
+	 */
+	private boolean planRoute(int start, int goal) {
+		int startCluster = clusterOf(start);
+		int goalCluster = clusterOf(goal);
+		int startId = portalNodes.length;
+		int goalId = portalNodes.length + 1;
+
+		Arrays.fill(portalToGoal, Double.POSITIVE_INFINITY);
+		for (int p : clusterPortals[goalCluster]) {
+			portalToGoal[p] = portalFields[p][clusterLocal(goal)];
+		}
+
+		portalGeneration++;
+		portalOpen.clear();
+		setPortalG(startId, 0);
+		for (int p : clusterPortals[startCluster]) {
+			relaxPortal(startId, p, portalFields[p][clusterLocal(start)], goal);
+		}
+
+		while (!portalOpen.isEmpty()) {
+			int u = portalOpen.peek();
+			portalOpen.remove(u);
+
+			if (u == goalId) {
+				routeLength = 0;
+				for (int p = portalParent[goalId]; p != startId; p = portalParent[p]) {
+					route[routeLength++] = p;
+				}
+				for (int i = 0; i < routeLength / 2; i++) {
+					int swap = route[i];
+					route[i] = route[routeLength - 1 - i];
+					route[routeLength - 1 - i] = swap;
+				}
+				return true;
+			}
+
+			for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+				relaxPortal(u, edgeTo[e], portalG(u) + edgeCost[e], goal);
+			}
+			if (!Double.isInfinite(portalToGoal[u])) {
+				relaxPortal(u, goalId, portalG(u) + portalToGoal[u], goal);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Turns the portals in {@link #route} into a path on the full resolution grid, by walking down each portal's
+	 * cost-to-go field from the previous one
+	 *
+	 * @return The path, or null if a dynamic obstacle blocks it
+	 */
+	private List<GridPosition> refineRoute(int start, int goal, ObstacleGrid obstacles) {
+		List<GridPosition> path = new ArrayList<>();
+		path.add(new GridPosition(start / nodesY, start % nodesY));
+		int current = start;
+		for (int i = 0; i < routeLength; i++) {
+			int p = route[i];
+			if (clusterOf(current) == clusterOf(portalNodes[p])) {
+				if (!descend(p, current, obstacles, path)) {
+					return null;
+				}
+			} else {
+				// Crossing the border into the next cluster
+				if (Double.isInfinite(cost(current / nodesY, current % nodesY, portalNodes[p] / nodesY, portalNodes[p] % nodesY, obstacles))) {
+					return null;
+				}
+				path.add(new GridPosition(portalNodes[p] / nodesY, portalNodes[p] % nodesY));
+			}
+			current = portalNodes[p];
+		}
+
+		// Costs are symmetric, so the last leg is the way down from the goal to the last portal, backwards
+		List<GridPosition> lastLeg = new ArrayList<>();
+		lastLeg.add(new GridPosition(goal / nodesY, goal % nodesY));
+		if (!descend(route[routeLength - 1], goal, obstacles, lastLeg)) {
+			return null;
+		}
+		for (int i = lastLeg.size() - 2; i >= 0; i--) {
+			path.add(lastLeg.get(i));
+		}
+		return path;
+	}
+
+	/**
+	 * Walks down a portal's cost-to-go field to it, from a node in the same cluster, adding every node after the first
+	 * to the path
+	 *
+	 * @return False if a dynamic obstacle is in the way or the portal can't be reached
+	 */
+	private boolean descend(int portal, int from, ObstacleGrid obstacles, List<GridPosition> path) {
+		float[] field = portalFields[portal];
+		int target = portalNodes[portal];
+		int cluster = clusterOf(target);
+		if (Float.isInfinite(field[clusterLocal(from)])) {
+			return false;
+		}
+
+		int s = from;
+		// Every step strictly lowers the cost-to-go, the bound just keeps float rounding from looping forever
+		for (int step = 0; step < field.length && s != target; step++) {
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			int best = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					int neighbor = x * nodesY + y;
+					if ((x != sx || y != sy) && inBounds(x, y) && clusterOf(neighbor) == cluster) {
+						double c = field[clusterLocal(neighbor)] + cost(sx, sy, x, y, staticObstacles);
+						if (c < bestCost) {
+							bestCost = c;
+							best = neighbor;
+						}
+					}
+				}
+			}
+			if (best == -1 || Double.isInfinite(cost(sx, sy, best / nodesY, best % nodesY, obstacles))) {
+				return false;
+			}
+			s = best;
+			path.add(new GridPosition(s / nodesY, s % nodesY));
+		}
+		return s == target;
+	}
+
+	private List<GridPosition> extractPath(int start, int goal) {
+		List<GridPosition> path = new ArrayList<>();
+		for (int s = goal; s != start; s = parent[s]) {
+			path.add(new GridPosition(s / nodesY, s % nodesY));
+		}
+		path.add(new GridPosition(start / nodesY, start % nodesY));
+		Collections.reverse(path);
+		return path;
+	}
+
+	private void relaxPortal(int from, int to, double newG, int goal) {
+		if (newG < portalG(to)) {
+			setPortalG(to, newG);
+			portalParent[to] = from;
+			double h = to < portalNodes.length ? distance(portalNodes[to], goal) : 0;
+			portalOpen.insertOrUpdate(to, newG + h, -newG);
+		}
+	}
+
+	/**
+	 * A* over the grid nodes in the allowed clusters, or Dijkstra to every node in them if there is no target
+	 *
+	 * @param target The node to search to, or -1 for none
+	 * @return True if the target was reached
+	 */
+	private boolean searchGrid(int source, int target, ObstacleGrid obstacles) {
+		generation++;
+		open.clear();
+
+		setG(source, 0);
+		parent[source] = source;
+		open.insertOrUpdate(source, target == -1 ? 0 : distance(source, target), 0);
+
+		int expanded = 0;
+		while (!open.isEmpty()) {
+			int s = open.peek();
+			open.remove(s);
+			expanded++;
+			if (s == target) {
+				countExpansions(expanded);
+				return true;
+			}
+			closedStamp[s] = generation;
+
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if (!inBounds(x, y) || !allowedClusters[(x / clusterSize) * clustersY + y / clusterSize]) {
+						continue;
+					}
+					int neighbor = x * nodesY + y;
+					double c = cost(sx, sy, x, y, obstacles);
+					if (closedStamp[neighbor] == generation || Double.isInfinite(c)) {
+						continue;
+					}
+					double newG = g(s) + c;
+					if (newG < g(neighbor)) {
+						setG(neighbor, newG);
+						parent[neighbor] = s;
+						// Ties go to the node furthest along, which expands fewer nodes on open ground
+						open.insertOrUpdate(neighbor, newG + (target == -1 ? 0 : distance(neighbor, target)), -newG);
+					}
+				}
+			}
+		}
+		countExpansions(expanded);
+		return false;
+	}
+
+	private void allowOnly(int cluster) {
+		Arrays.fill(allowedClusters, false);
+		allowedClusters[cluster] = true;
+	}
+
+	/**
+	 * @return A node's index within its cluster
+	 */
+	private int clusterLocal(int node) {
+		return (node / nodesY % clusterSize) * clusterSize + node % nodesY % clusterSize;
+	}
+
+	private int clusterOf(int node) {
+		return (node / nodesY / clusterSize) * clustersY + (node % nodesY) / clusterSize;
+	}
+
+	private double g(int s) {
+		return valueStamp[s] == generation ? g[s] : Double.POSITIVE_INFINITY;
+	}
+
+	private void setG(int s, double value) {
+		valueStamp[s] = generation;
+		g[s] = value;
+	}
+
+	private double portalG(int p) {
+		return portalStamp[p] == portalGeneration ? portalG[p] : Double.POSITIVE_INFINITY;
+	}
+
+	private void setPortalG(int p, double value) {
+		portalStamp[p] = portalGeneration;
+		portalG[p] = value;
+	}
+}
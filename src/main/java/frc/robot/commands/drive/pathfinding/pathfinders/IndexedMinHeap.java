@@ -0,0 +1,198 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of grid node indices ordered by a lexicographic (key1, key2) pair, with a position index per node so that
+ * decrease-key, increase-key and remove-by-node are all O(log n).
+ * <p>
+ * Membership is generation stamped like {@link ADStarGridState}, so {@link #clear()} is O(1).
+ */
+public class IndexedMinHeap {
+	private final int[] heap;
+	private final int[] position;
+	private final int[] stamp;
+	private final double[] key1;
+	private final double[] key2;
+	private int size = 0;
+	private int generation = 1;
+
+	/**
+	 * @param nodeCount The number of distinct nodes that may ever be stored (node indices are in [0, nodeCount))
+	 */
+	public IndexedMinHeap(int nodeCount) {
+		this.heap = new int[nodeCount];
+		this.position = new int[nodeCount];
+		this.stamp = new int[nodeCount];
+		this.key1 = new double[nodeCount];
+		this.key2 = new double[nodeCount];
+	}
+
+	public void clear() {
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 0;
+		}
+		generation++;
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int node) {
+		return stamp[node] == generation;
+	}
+
+	/**
+	 * @return The node with the smallest key, or -1 if the heap is empty
+	 */
+	public int peek() {
+		return size == 0 ? -1 : heap[0];
+	}
+
+	public double key1(int node) {
+		return key1[node];
+	}
+
+	public double key2(int node) {
+		return key2[node];
+	}
+
+	/**
+	 * Inserts a node, or moves it to its new place if it is already in the heap.
+	 */
+	public void insertOrUpdate(int node, double k1, double k2) {
+		if (!contains(node)) {
+			stamp[node] = generation;
+			key1[node] = k1;
+			key2[node] = k2;
+			heap[size] = node;
+			position[node] = size;
+			size++;
+			siftUp(size - 1);
+			return;
+		}
+
+		boolean decreased = compare(k1, k2, key1[node], key2[node]) < 0;
+		key1[node] = k1;
+		key2[node] = k2;
+		if (decreased) {
+			siftUp(position[node]);
+		} else {
+			siftDown(position[node]);
+		}
+	}
+
+	/**
+	 * Removes a node from the heap. Does nothing if the node isn't in it.
+	 */
+	public void remove(int node) {
+		if (!contains(node)) {
+			return;
+		}
+		stamp[node] = 0;
+
+		int pos = position[node];
+		size--;
+		if (pos == size) {
+			return;
+		}
+
+		int last = heap[size];
+		heap[pos] = last;
+		position[last] = pos;
+		siftDown(pos);
+		if (heap[pos] == last) {
+			siftUp(pos);
+		}
+	}
+
+	/**
+	 * @param i A position in [0, {@link #size()})
+	 * @return The node stored at that position in the heap array. Positions change whenever the heap is modified.
+	 */
+	public int nodeAt(int i) {
+		return heap[i];
+	}
+
+	/**
+	 * Changes a node's key without restoring heap order. {@link #heapify()} must be called before the heap is read again.
+	 * Used to re-key the whole heap in O(n) rather than O(n log n).
+	 */
+	public void setKeyUnordered(int node, double k1, double k2) {
+		key1[node] = k1;
+		key2[node] = k2;
+	}
+
+	/**
+	 * Inserts a node without restoring heap order. {@link #heapify()} must be called before the heap is read again.
+	 */
+	public void insertUnordered(int node, double k1, double k2) {
+		if (contains(node)) {
+			setKeyUnordered(node, k1, k2);
+			return;
+		}
+		stamp[node] = generation;
+		key1[node] = k1;
+		key2[node] = k2;
+		heap[size] = node;
+		position[node] = size;
+		size++;
+	}
+
+	/**
+	 * Restores heap order after unordered changes, in O(n).
+	 */
+	public void heapify() {
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	private void siftUp(int i) {
+		int node = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int parentNode = heap[parent];
+			if (compare(key1[node], key2[node], key1[parentNode], key2[parentNode]) >= 0) {
+				break;
+			}
+			heap[i] = parentNode;
+			position[parentNode] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i) {
+		int node = heap[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < size && compare(key1[heap[right]], key2[heap[right]], key1[heap[child]], key2[heap[child]]) < 0) {
+				child = right;
+			}
+			int childNode = heap[child];
+			if (compare(key1[node], key2[node], key1[childNode], key2[childNode]) <= 0) {
+				break;
+			}
+			heap[i] = childNode;
+			position[childNode] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private static int compare(double a1, double a2, double b1, double b2) {
+		return ADStarGridState.compareKeys(a1, a2, b1, b2);
+	}
+}
@@ -0,0 +1,211 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Implementation of Lazy Theta* (Nash, Koenig and Tovey, 2010) running locally in a background thread.
+ * <p>
+ * An any-angle alternative to {@link LocalADStar2}. Rather than only stepping between neighboring nodes, a node may take
+ * its parent's parent as its own parent if there is line of sight between them, so paths come out as a few long straight
+ * segments instead of 8-connected staircases that have to be straightened afterward. Line of sight is only checked when
+ * a node is expanded (that's the lazy part), so most candidate parents are never checked at all.
+ * <p>
+ * This isn't incremental like AD*: any change to the start, goal or obstacles plans again from scratch, which on the
+ * navgrid is a few hundred expansions.
+ */
+public class LazyThetaStar extends GridPathfinder {
+	private final double[] g;
+	private final int[] parent;
+	private final int[] valueStamp;
+	private final int[] closedStamp;
+	private final IndexedMinHeap open;
+	private int generation = 0;
+	/**
+	 * The obstacles that the current path was planned around. Only touched by the planning thread.
+	 */
+	private ObstacleGrid plannedObstacles;
+	private boolean requestReplan = true;
+
+	/**
+	 * Create a new pathfinder that runs Lazy Theta* locally in a background thread
+	 */
+	public LazyThetaStar() {
+		this(DEFAULT_PLANNING_THREAD_PRIORITY);
+	}
+
+	/**
+	 * Create a new pathfinder that runs Lazy Theta* locally in a background thread
+	 *
+	 * @param planningThreadPriority The {@link Thread#setPriority(int) priority} of the planning thread,
+	 *                               between {@link Thread#MIN_PRIORITY} and {@link Thread#MAX_PRIORITY}
+	 */
+	public LazyThetaStar(int planningThreadPriority) {
+		super("Lazy Theta* Planning Thread", planningThreadPriority);
+
+		int nodeCount = nodesX * nodesY;
+		g = new double[nodeCount];
+		parent = new int[nodeCount];
+		valueStamp = new int[nodeCount];
+		closedStamp = new int[nodeCount];
+		open = new IndexedMinHeap(nodeCount);
+		plannedObstacles = staticObstacles;
+
+		startPlanningThread();
+	}
+
+	@Override
+	protected void onStartChanged() {
+		requestReplan = true;
+	}
+
+	@Override
+	protected void onGoalChanged() {
+		requestReplan = true;
+	}
+
+	@Override
+	protected void onPlanningError(Exception e) {
+		requestLock.writeLock().lock();
+		requestReplan = true;
+		requestLock.writeLock().unlock();
+	}
+
+	@Override
+	protected boolean plan() {
+		requestLock.writeLock().lock();
+		GridPosition start = requestStart;
+		Translation2d realStart = requestRealStartPos;
+		GridPosition goal = requestGoal;
+		Translation2d realGoal = requestRealGoalPos;
+		ObstacleGrid obstacles = requestObstacles;
+		boolean replan = requestReplan || obstacles.version() != plannedObstacles.version();
+		requestReplan = false;
+		requestLock.writeLock().unlock();
+
+		if (!replan) {
+			return false;
+		}
+
+		plannedObstacles = obstacles;
+		publishPath(search(index(start), index(goal), obstacles), realStart, realGoal, obstacles);
+		return true;
+	}
+
+	/**
+	 * @return The path's vertices from start to goal, or an empty list if the goal can't be reached
+	 */
+	private List<GridPosition> search(int start, int goal, ObstacleGrid obstacles) {
+		if (start == goal) {
+			return new ArrayList<>();
+		}
+
+		generation++;
+		open.clear();
+
+		setG(start, 0);
+		parent[start] = start;
+		open.insertOrUpdate(start, distance(start, goal), 0);
+
+		int expanded = 0;
+		while (!open.isEmpty()) {
+			int s = open.peek();
+			open.remove(s);
+			expanded++;
+
+			setVertex(s, obstacles);
+			if (s == goal) {
+				countExpansions(expanded);
+				return extractPath(start, goal);
+			}
+			closedStamp[s] = generation;
+
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					int neighbor = x * nodesY + y;
+					if (!inBounds(x, y) || closedStamp[neighbor] == generation || Double.isInfinite(cost(sx, sy, x, y, obstacles))) {
+						continue;
+					}
+					updateVertex(s, neighbor, goal);
+				}
+			}
+		}
+
+		countExpansions(expanded);
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Offers a neighbor of an expanded node the expanded node's parent as its parent, assuming there is line of sight.
+	 * {@link #setVertex(int, ObstacleGrid)} checks that assumption once the neighbor gets expanded.
+	 */
+	private void updateVertex(int s, int neighbor, int goal) {
+		int p = parent[s];
+		double newG = g(p) + distance(p, neighbor) * (1 + 0.5 * (clearancePenalty(p) + clearancePenalty(neighbor)));
+		if (newG < g(neighbor)) {
+			setG(neighbor, newG);
+			parent[neighbor] = p;
+			// Ties go to the node furthest along, which expands fewer nodes on open ground
+			open.insertOrUpdate(neighbor, newG + distance(neighbor, goal), -newG);
+		}
+	}
+
+	/**
+	 * Checks the parent that was assumed for a node as it gets expanded. If there isn't line of sight to it after all, the
+	 * node falls back to its best already expanded neighbor, which is always reachable with a single grid move.
+	 */
+	private void setVertex(int s, ObstacleGrid obstacles) {
+		int p = parent[s];
+		if (p == s) {
+			return;
+		}
+
+		double lineCost = lineCost(p, s, obstacles);
+		if (!Double.isInfinite(lineCost)) {
+			setG(s, g(p) + lineCost);
+			return;
+		}
+
+		int sx = s / nodesY;
+		int sy = s % nodesY;
+		double bestG = Double.POSITIVE_INFINITY;
+		for (int x = sx - 1; x <= sx + 1; x++) {
+			for (int y = sy - 1; y <= sy + 1; y++) {
+				int neighbor = x * nodesY + y;
+				if (!inBounds(x, y) || closedStamp[neighbor] != generation) {
+					continue;
+				}
+				double newG = g(neighbor) + cost(x, y, sx, sy, obstacles);
+				if (newG < bestG) {
+					bestG = newG;
+					parent[s] = neighbor;
+				}
+			}
+		}
+		setG(s, bestG);
+	}
+
+	private List<GridPosition> extractPath(int start, int goal) {
+		List<GridPosition> path = new ArrayList<>();
+		for (int s = goal; s != start; s = parent[s]) {
+			path.add(new GridPosition(s / nodesY, s % nodesY));
+		}
+		path.add(new GridPosition(start / nodesY, start % nodesY));
+		Collections.reverse(path);
+		return path;
+	}
+
+	private double g(int s) {
+		return valueStamp[s] == generation ? g[s] : Double.POSITIVE_INFINITY;
+	}
+
+	private void setG(int s, double value) {
+		valueStamp[s] = generation;
+		g[s] = value;
+	}
+}
@@ -1,25 +1,10 @@
 package frc.robot.commands.drive.pathfinding.pathfinders;
 
-import com.pathplanner.lib.path.GoalEndState;
-import com.pathplanner.lib.path.PathConstraints;
-import com.pathplanner.lib.path.PathPlannerPath;
-import com.pathplanner.lib.path.Waypoint;
-import edu.wpi.first.math.Pair;
-import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.wpilibj.Filesystem;
-import frc.robot.commands.drive.pathfinding.Pathfinder2;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import edu.wpi.first.networktables.DoublePublisher;
+import frc.robot.util.NetworkTablesUtil;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.util.*;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Implementation of AD* running locally in a background thread
@@ -39,288 +24,175 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *
  * @see com.pathplanner.lib.pathfinding.LocalADStar
  */
-public class LocalADStar2 implements Pathfinder2 {
+public class LocalADStar2 extends GridPathfinder {
 	/**
-	 * Note: don't set this number too low because it will make the path gen go backwards (??? not sure why - addison)
+	 * How long the planner searches before publishing the best path it has so far and checking for new requests
 	 */
-	private static final double SMOOTHING_ANCHOR_PCT = 0.6;
+	public static final double DEFAULT_PLANNING_BUDGET_SECONDS = 0.008;
+	private static final DoublePublisher publishedEpsPub = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleTopic("pathfinder_eps").publish();
 	private static final double EPS = 2.5;
-	private final HashMap<GridPosition, Double> g = new HashMap<>();
-	private final HashMap<GridPosition, Double> rhs = new HashMap<>();
-	private final HashMap<GridPosition, Pair<Double, Double>> open = new HashMap<>();
-	private final HashMap<GridPosition, Pair<Double, Double>> incons = new HashMap<>();
-	private final Set<GridPosition> closed = new HashSet<>();
-	private final Set<GridPosition> staticObstacles = new HashSet<>();
-	private final Set<GridPosition> dynamicObstacles = new HashSet<>();
-	private final Set<GridPosition> requestObstacles = new HashSet<>();
-	private final Thread planningThread;
-	private final ReadWriteLock pathLock = new ReentrantReadWriteLock();
-	private final ReadWriteLock requestLock = new ReentrantReadWriteLock();
-	private double fieldLength = 16.54;
-	private double fieldWidth = 8.02;
-	private double nodeSize = 0.2;
-	private int nodesX = (int) Math.ceil(fieldLength / nodeSize);
-	private int nodesY = (int) Math.ceil(fieldWidth / nodeSize);
-	private GridPosition requestStart;
-	private Translation2d requestRealStartPos;
-	private GridPosition requestGoal;
-	private Translation2d requestRealGoalPos;
+	/**
+	 * Keys that are equal in exact arithmetic can come out a few ulps apart depending on the order the costs were summed in.
+	 * Within this, first keys count as tied so the second key still decides.
+	 */
+	private static final double KEY_TOLERANCE = 1e-9;
+	/**
+	 * How many searches for recent goals are kept around, one for each reef face
+	 */
+	private static final int PARKED_SEARCHES = 6;
+	/**
+	 * The search for {@link #searchedGoal}. Only touched by the planning thread.
+	 */
+	private ADStarGridState state;
+	/**
+	 * The goal node that {@link #state} searches from, or -1 before the first search. Only touched by the planning thread.
+	 */
+	private int searchedGoal = -1;
+	/**
+	 * Whether {@link #state} holds a search that can be picked back up, as opposed to being left over from paths read off
+	 * of a cost-to-go field. Only touched by the planning thread.
+	 */
+	private boolean searchValid = false;
+	/**
+	 * The searches for recent goals other than {@link #searchedGoal} by goal node, least recently used first, so switching
+	 * back to one resumes it instead of starting over. Only touched by the planning thread.
+	 */
+	private final LinkedHashMap<Integer, ParkedSearch> parkedSearches = new LinkedHashMap<>(16, 0.75f, true);
+	private final long planningBudgetNanos;
+	/**
+	 * The nodes of the path being read off of the search, reused between paths. Only touched by the planning thread.
+	 */
+	private final int[] pathBuffer;
+	/**
+	 * The obstacles that the current search state was built against. Only touched by the planning thread.
+	 */
+	private ObstacleGrid plannedObstacles;
+	/**
+	 * The start node that the open keys were last computed from. Only touched by the planning thread.
+	 */
+	private int plannedStart = -1;
+	/**
+	 * The precomputed cost-to-go field of the current goal, while paths are being read off of it instead of searched for.
+	 * Only touched by the planning thread.
+	 */
+	private CostToGoField goalField;
 	private double eps;
+	/**
+	 * Whether the current search pass ran out of time and has to be picked up where it left off. Only touched by the planning thread.
+	 */
+	private boolean passInProgress = false;
+	/**
+	 * Whether the start or goal changed since the last published path, so the next finished pass has to publish even if
+	 * the path looks the same. Only touched by the planning thread.
+	 */
+	private boolean publishOwed = false;
+	private volatile double publishedEps = Double.POSITIVE_INFINITY;
 	private boolean requestMinor = true;
 	private boolean requestMajor = true;
 	private boolean requestReset = true;
-	private boolean newPathAvailable = false;
-	private List<Waypoint> currentWaypoints = new ArrayList<>();
-	private List<GridPosition> currentPathFull = new ArrayList<>();
 	
 	/**
 	 * Create a new pathfinder that runs AD* locally in a background thread
 	 */
 	public LocalADStar2() {
-		planningThread = new Thread(this::runThread);
-		
-		requestStart = new GridPosition(0, 0);
-		requestRealStartPos = Translation2d.kZero;
-		requestGoal = new GridPosition(0, 0);
-		requestRealGoalPos = Translation2d.kZero;
-		
-		staticObstacles.clear();
-		dynamicObstacles.clear();
-		
-		File navGridFile = new File(Filesystem.getDeployDirectory(), "pathplanner/navgrid.json");
-		if (navGridFile.exists()) {
-			try (BufferedReader br = new BufferedReader(new FileReader(navGridFile))) {
-				StringBuilder fileContentBuilder = new StringBuilder();
-				String line;
-				while ((line = br.readLine()) != null) {
-					fileContentBuilder.append(line);
-				}
-				
-				String fileContent = fileContentBuilder.toString();
-				JSONObject json = (JSONObject) new JSONParser().parse(fileContent);
-				
-				nodeSize = ((Number) json.get("nodeSizeMeters")).doubleValue();
-				JSONArray grid = (JSONArray) json.get("grid");
-				nodesY = grid.size();
-				for (int row = 0; row < grid.size(); row++) {
-					JSONArray rowArray = (JSONArray) grid.get(row);
-					if (row == 0) {
-						nodesX = rowArray.size();
-					}
-					for (int col = 0; col < rowArray.size(); col++) {
-						boolean isObstacle = (boolean) rowArray.get(col);
-						if (isObstacle) {
-							staticObstacles.add(new GridPosition(col, row));
-						}
-					}
-				}
-				
-				JSONObject fieldSize = (JSONObject) json.get("field_size");
-				fieldLength = ((Number) fieldSize.get("x")).doubleValue();
-				fieldWidth = ((Number) fieldSize.get("y")).doubleValue();
-			} catch (Exception e) {
-				// Do nothing, use defaults
-			}
-		}
-		
-		requestObstacles.clear();
-		requestObstacles.addAll(staticObstacles);
-		requestObstacles.addAll(dynamicObstacles);
-		
-		requestReset = true;
-		requestMajor = true;
-		requestMinor = true;
-		
-		newPathAvailable = false;
-		
-		planningThread.setDaemon(true);
-		planningThread.setName("ADStar Planning Thread");
-		planningThread.start();
+		this(DEFAULT_PLANNING_THREAD_PRIORITY);
 	}
 	
 	/**
-	 * Get if a new path has been calculated since the last time a path was retrieved
+	 * Create a new pathfinder that runs AD* locally in a background thread
 	 *
-	 * @return True if a new path is available
+	 * @param planningThreadPriority The {@link Thread#setPriority(int) priority} of the planning thread,
+	 *                               between {@link Thread#MIN_PRIORITY} and {@link Thread#MAX_PRIORITY}
 	 */
-	@Override
-	public boolean isNewPathAvailable() {
-		return newPathAvailable;
+	public LocalADStar2(int planningThreadPriority) {
+		this(planningThreadPriority, DEFAULT_PLANNING_BUDGET_SECONDS);
 	}
 	
 	/**
-	 * Get the most recently calculated path
+	 * Create a new pathfinder that runs AD* locally in a background thread
 	 *
-	 * @param constraints  The path constraints to use when creating the path
-	 * @param goalEndState The goal end state to use when creating the path
-	 * @return The PathPlannerPath created from the points calculated by the pathfinder
+	 * @param planningThreadPriority The {@link Thread#setPriority(int) priority} of the planning thread,
+	 *                               between {@link Thread#MIN_PRIORITY} and {@link Thread#MAX_PRIORITY}
+	 * @param planningBudgetSeconds  How long to search before publishing the best path so far. The rest of the search
+	 *                               continues afterward, so this bounds how late a path can be rather than how good it is.
 	 */
-	@Override
-	public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
-		newPathAvailable = false;
-		return getCurrentPathWithoutUpdate(constraints, goalEndState);
-	}
-	
-	public PathPlannerPath getCurrentPathWithoutUpdate(PathConstraints constraints, GoalEndState goalEndState) {
-		List<Waypoint> waypoints;
+	public LocalADStar2(int planningThreadPriority, double planningBudgetSeconds) {
+		super("ADStar Planning Thread", planningThreadPriority);
 		
-		pathLock.readLock().lock();
-		waypoints = new ArrayList<>(currentWaypoints);
-		pathLock.readLock().unlock();
+		planningBudgetNanos = (long) (planningBudgetSeconds * 1e9);
+		plannedObstacles = staticObstacles;
+		state = new ADStarGridState(nodesX * nodesY);
+		pathBuffer = new int[nodesX * nodesY];
 		
-		if (waypoints.size() < 2) {
-			// Not enough points. Something got borked somewhere
-			return null;
-		}
+		requestReset = true;
+		requestMajor = true;
+		requestMinor = true;
+
+		newPathAvailable = false;
 		
-		return new PathPlannerPath(
-			waypoints,
-			constraints,
-			null,
-			goalEndState
-		);
+		startPlanningThread();
 	}
 	
-	/**
-	 * Set the start position to pathfind from
-	 *
-	 * @param startPosition Start position on the field. If this is within an obstacle it will be
-	 *                      moved to the nearest non-obstacle node.
-	 */
 	@Override
-	public void setStartPosition(Translation2d startPosition) {
-		GridPosition startPos = findClosestNonObstacle(getGridPos(startPosition), requestObstacles);
-		
-		if (startPos != null && !startPos.equals(requestStart)) {
-			requestLock.writeLock().lock();
-			requestStart = startPos;
-			requestRealStartPos = startPosition;
-			
-			requestMinor = true;
-			newPathAvailable = false;
-			requestLock.writeLock().unlock();
-		}
+	protected void onStartChanged() {
+		requestMinor = true;
 	}
 	
-	/**
-	 * Set the goal position to pathfind to
-	 *
-	 * @param goalPosition Goal position on the field. f this is within an obstacle it will be moved
-	 *                     to the nearest non-obstacle node.
-	 */
 	@Override
-	public void setGoalPosition(Translation2d goalPosition) {
-		GridPosition gridPos = findClosestNonObstacle(getGridPos(goalPosition), requestObstacles);
-		
-		if (gridPos != null) {
-			requestLock.writeLock().lock();
-			requestGoal = gridPos;
-			requestRealGoalPos = goalPosition;
-			
-			requestMinor = true;
-			requestMajor = true;
-			requestReset = true;
-			newPathAvailable = false;
-			requestLock.writeLock().unlock();
-		}
+	protected void onGoalChanged() {
+		requestMinor = true;
+		requestMajor = true;
+		requestReset = true;
 	}
 	
-	/**
-	 * Set the dynamic obstacles that should be avoided while pathfinding.
-	 *
-	 * @param obs             A List of Translation2d pairs representing obstacles. Each Translation2d represents
-	 *                        opposite corners of a bounding box.
-	 * @param currentRobotPos The current position of the robot. This is needed to change the start
-	 *                        position of the path if the robot is now within an obstacle.
-	 */
 	@Override
-	public void setDynamicObstacles(
-		List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
-		Set<GridPosition> newObs = new HashSet<>();
-		
-		for (var obstacle : obs) {
-			var gridPos1 = getGridPos(obstacle.getFirst());
-			var gridPos2 = getGridPos(obstacle.getSecond());
-			
-			int minX = Math.min(gridPos1.x, gridPos2.x);
-			int maxX = Math.max(gridPos1.x, gridPos2.x);
-			
-			int minY = Math.min(gridPos1.y, gridPos2.y);
-			int maxY = Math.max(gridPos1.y, gridPos2.y);
-			
-			for (int x = minX; x <= maxX; x++) {
-				for (int y = minY; y <= maxY; y++) {
-					newObs.add(new GridPosition(x, y));
-				}
-			}
-		}
-		
-		dynamicObstacles.clear();
-		dynamicObstacles.addAll(newObs);
+	protected void onPlanningError(Exception e) {
+		// Reset and hope for the best. The parked searches might be just as broken.
+		parkedSearches.clear();
+		searchValid = false;
 		requestLock.writeLock().lock();
-		requestObstacles.clear();
-		requestObstacles.addAll(staticObstacles);
-		requestObstacles.addAll(dynamicObstacles);
+		requestReset = true;
 		requestLock.writeLock().unlock();
-		
-		pathLock.readLock().lock();
-		boolean recalculate = false;
-		for (GridPosition pos : currentPathFull) {
-			if (requestObstacles.contains(pos)) {
-				recalculate = true;
-				break;
-			}
-		}
-		pathLock.readLock().unlock();
-		
-		if (recalculate) {
-			setStartPosition(currentRobotPos);
-			setGoalPosition(requestRealGoalPos);
-		}
 	}
 	
-	@SuppressWarnings("BusyWait")
-	private void runThread() {
-		while (true) {
-			try {
-				requestLock.readLock().lock();
-				boolean reset = requestReset;
-				boolean minor = requestMinor;
-				boolean major = requestMajor;
-				GridPosition start = requestStart;
-				Translation2d realStart = requestRealStartPos;
-				GridPosition goal = requestGoal;
-				Translation2d realGoal = requestRealGoalPos;
-				Set<GridPosition> obstacles = new HashSet<>(requestObstacles);
-				
-				// Change the request booleans based on what will be done this loop
-				if (reset) {
-					requestReset = false;
-				}
-				
-				if (minor) {
-					requestMinor = false;
-				} else if (major && (eps - 0.5) <= 1.0) {
-					requestMajor = false;
-				}
-				requestLock.readLock().unlock();
-				
-				if (reset || minor || major) {
-					doWork(reset, minor, major, start, goal, realStart, realGoal, obstacles);
-				} else {
-					try {
-						Thread.sleep(10);
-					} catch (InterruptedException e) {
-						throw new RuntimeException(e);
-					}
-				}
-			} catch (Exception e) {
-				// Something messed up. Reset and hope for the best
-				requestLock.writeLock().lock();
-				requestReset = true;
-				requestLock.writeLock().unlock();
-			}
+	/**
+	 * @return The eps of the search pass the current path came from. Its cost is at most this many times the cheapest
+	 * path's, or infinity if it came from a pass that ran out of time before it had any bound. Also published to
+	 * NetworkTables as {@code pathfinder_eps}.
+	 */
+	public double getPublishedPathEps() {
+		return publishedEps;
+	}
+
+	@Override
+	protected boolean plan() {
+		requestLock.readLock().lock();
+		boolean reset = requestReset;
+		boolean minor = requestMinor;
+		boolean major = requestMajor;
+		GridPosition start = requestStart;
+		Translation2d realStart = requestRealStartPos;
+		GridPosition goal = requestGoal;
+		Translation2d realGoal = requestRealGoalPos;
+		ObstacleGrid obstacles = requestObstacles;
+
+		// Change the request booleans based on what will be done this loop
+		if (reset) {
+			requestReset = false;
+		}
+
+		if (minor) {
+			requestMinor = false;
+		} else if (major && !passInProgress && (eps - 0.5) <= 1.0) {
+			requestMajor = false;
+		}
+		requestLock.readLock().unlock();
+
+		if (reset || minor || major || passInProgress || obstacles.version() != plannedObstacles.version()) {
+			doWork(reset, minor, major, start, goal, realStart, realGoal, obstacles);
+			return true;
 		}
+		return false;
 	}
 	
 	private void doWork(
@@ -331,405 +203,378 @@ public class LocalADStar2 implements Pathfinder2 {
 		GridPosition sGoal,
 		Translation2d realStartPos,
 		Translation2d realGoalPos,
-		Set<GridPosition> obstacles) {
-		if (needsReset) {
-			reset(sStart, sGoal);
+		ObstacleGrid obstacles) {
+		long deadline = System.nanoTime() + planningBudgetNanos;
+		int start = index(sStart);
+		int goal = index(sGoal);
+		if (doMinor) {
+			publishOwed = true;
 		}
 		
-		if (doMinor) {
-			computeOrImprovePath(sStart, sGoal, obstacles);
-			
-			List<GridPosition> pathPositions = extractPath(sStart, sGoal, obstacles);
-			List<Waypoint> waypoints =
-				createWaypoints(pathPositions, realStartPos, realGoalPos, obstacles);
-			
-			pathLock.writeLock().lock();
-			currentPathFull = pathPositions;
-			currentWaypoints = waypoints;
-			pathLock.writeLock().unlock();
+		if (needsReset) {
+			// The tree only depends on the goal and the obstacles, so asking for the same goal again, or a recent one, picks
+			// up where that search left off
+			if (goal != searchedGoal) {
+				switchSearch(goal);
+			} else if (searchValid) {
+				// A new request for the same goal keeps the tree but starts its passes over from the loosest bound, like a new
+				// search would
+				eps = EPS;
+				state.moveInconsToOpen();
+				state.rekeyOpen(s -> key1(s, start), this::key2);
+				state.clearClosed();
+				passInProgress = true;
+			}
+			goalField = costToGoField(goal);
+		}
+		if (goalField != null) {
+			List<GridPosition> pathPositions = followCostToGo(goalField, sStart, obstacles);
+			if (pathPositions != null) {
+				// The best path around the static obstacles is clear, and dynamic obstacles only make every other path more
+				// expensive, so it's already optimal and there is nothing to search or improve
+				if (publishOwed || !pathPositions.equals(currentPathFull)) {
+					publishPath(pathPositions, realStartPos, realGoalPos, obstacles, 1.0);
+				}
+				eps = 1.0;
+				passInProgress = false;
+				plannedObstacles = obstacles;
+				plannedStart = start;
+				// None of that describes the search anymore
+				searchValid = false;
+				return;
+			}
 			
-			newPathAvailable = true;
+			// Something is in the way, so search against the current obstacles
+			goalField = null;
+			doMinor = true;
+			requestLock.writeLock().lock();
+			requestMajor = true;
+			requestLock.writeLock().unlock();
+		}
+
+		boolean repaired = false;
+		if (!searchValid) {
+			reset(start, goal);
+			plannedObstacles = obstacles;
+		} else if (obstacles.version() != plannedObstacles.version()) {
+			repairChangedCells(start, goal, plannedObstacles, obstacles);
+			plannedObstacles = obstacles;
+			repaired = true;
+		} else if (start != plannedStart) {
+			// The heuristic part of every open key is measured from the start
+			state.rekeyOpen(s -> key1(s, start), this::key2);
+		}
+		plannedStart = start;
+
+		if (doMinor || repaired || passInProgress) {
+			runPass(sStart, sGoal, realStartPos, realGoalPos, obstacles, deadline);
 		} else if (doMajor) {
 			if (eps > 1.0) {
 				eps -= 0.5;
-				open.putAll(incons);
-				
-				open.replaceAll((s, v) -> key(s, sStart));
-				closed.clear();
-				computeOrImprovePath(sStart, sGoal, obstacles);
-				
-				List<GridPosition> pathPositions = extractPath(sStart, sGoal, obstacles);
-				List<Waypoint> waypoints =
-					createWaypoints(pathPositions, realStartPos, realGoalPos, obstacles);
-				
-				pathLock.writeLock().lock();
-				currentPathFull = pathPositions;
-				currentWaypoints = waypoints;
-				pathLock.writeLock().unlock();
-				
-				newPathAvailable = true;
+				state.moveInconsToOpen();
+				state.rekeyOpen(s -> key1(s, start), this::key2);
+				state.clearClosed();
+				runPass(sStart, sGoal, realStartPos, realGoalPos, obstacles, deadline);
 			}
 		}
 	}
 	
-	private List<GridPosition> extractPath(
-		GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-		if (sGoal.equals(sStart)) {
-			return new ArrayList<>();
-		}
-		
-		List<GridPosition> path = new ArrayList<>();
-		path.add(sStart);
-		
-		var s = sStart;
-		
-		for (int k = 0; k < 200; k++) {
-			HashMap<GridPosition, Double> gList = new HashMap<>();
-			
-			for (GridPosition x : getOpenNeighbors(s, obstacles)) {
-				gList.put(x, g.get(x));
-			}
-			
-			Map.Entry<GridPosition, Double> min = Map.entry(sGoal, Double.POSITIVE_INFINITY);
-			for (var entry : gList.entrySet()) {
-				if (entry.getValue() < min.getValue()) {
-					min = entry;
-				}
-			}
-			s = min.getKey();
-			
-			path.add(s);
-			if (s.equals(sGoal)) {
-				break;
+	/**
+	 * Searches until the current pass is finished or the deadline passes, then publishes the path if it's worth it
+	 */
+	private void runPass(
+		GridPosition sStart,
+		GridPosition sGoal,
+		Translation2d realStartPos,
+		Translation2d realGoalPos,
+		ObstacleGrid obstacles,
+		long deadline) {
+		int start = index(sStart);
+		passInProgress = !computeOrImprovePath(start, index(sGoal), obstacles, deadline);
+		if (passInProgress && (Double.isInfinite(state.g(start)) || state.g(start) != state.rhs(start))) {
+			// Out of time before the search got back to the start, so there's no path to read yet
+			return;
+		}
+		List<GridPosition> pathPositions = extractPath(sStart, sGoal, obstacles);
+
+		if (!passInProgress) {
+			// A path that didn't change isn't worth making the follower regenerate its trajectory for, it just got a tighter bound
+			if (publishOwed || !pathPositions.equals(currentPathFull)) {
+				publishPath(pathPositions, realStartPos, realGoalPos, obstacles, eps);
+			} else {
+				reportEps(eps);
 			}
+			return;
 		}
 		
-		return path;
+		// Out of time. The path so far may still not reach the goal, but if it does and it's cheaper than the current path
+		// (which moving the start or an obstacle may have broken), it's the best there is until the pass finishes.
+		double cost = pathCost(pathPositions, sStart, sGoal, obstacles);
+		if (!Double.isInfinite(cost) && (publishOwed || cost < pathCost(currentPathFull, sStart, sGoal, obstacles))) {
+			// Cheaper than a path with a bound is still within that bound, but a new start or goal has none yet
+			publishPath(pathPositions, realStartPos, realGoalPos, obstacles, publishOwed ? Double.POSITIVE_INFINITY : publishedEps);
+		}
 	}
 	
-	private List<Waypoint> createWaypoints(
-		List<GridPosition> path,
+	private void publishPath(
+		List<GridPosition> pathPositions,
 		Translation2d realStartPos,
 		Translation2d realGoalPos,
-		Set<GridPosition> obstacles) {
-		if (path.isEmpty()) {
-			return new ArrayList<>();
+		ObstacleGrid obstacles,
+		double pathEps) {
+		publishPath(pathPositions, realStartPos, realGoalPos, obstacles);
+		publishOwed = false;
+		reportEps(pathEps);
+	}
+
+	private void reportEps(double pathEps) {
+		publishedEps = pathEps;
+		publishedEpsPub.set(pathEps);
+	}
+
+	/**
+	 * @return The cost of a path, or infinity if it doesn't lead from the start to the goal around the obstacles
+	 */
+	private double pathCost(List<GridPosition> path, GridPosition sStart, GridPosition sGoal, ObstacleGrid obstacles) {
+		if (path.isEmpty() || !path.get(0).equals(sStart) || !path.get(path.size() - 1).equals(sGoal)) {
+			return Double.POSITIVE_INFINITY;
 		}
 		
-		List<GridPosition> simplifiedPath = new ArrayList<>();
-		simplifiedPath.add(path.get(0));
-		for (int i = 1; i < path.size() - 1; i++) {
-			if (!walkable(simplifiedPath.get(simplifiedPath.size() - 1), path.get(i + 1), obstacles)) {
-				simplifiedPath.add(path.get(i));
+		double total = 0;
+		for (int i = 1; i < path.size(); i++) {
+			GridPosition a = path.get(i - 1);
+			GridPosition b = path.get(i);
+			if (Math.abs(a.x() - b.x()) > 1 || Math.abs(a.y() - b.y()) > 1) {
+				return Double.POSITIVE_INFINITY;
 			}
+			total += cost(a.x(), a.y(), b.x(), b.y(), obstacles);
 		}
-		simplifiedPath.add(path.get(path.size() - 1));
-		
-		List<Translation2d> fieldPosPath = new ArrayList<>();
-		for (GridPosition pos : simplifiedPath) {
-			fieldPosPath.add(gridPosToTranslation2d(pos));
-		}
-		
-		if (fieldPosPath.size() < 2) {
+		return total;
+	}
+
+	private List<GridPosition> extractPath(
+		GridPosition sStart, GridPosition sGoal, ObstacleGrid obstacles) {
+		if (sGoal.equals(sStart)) {
 			return new ArrayList<>();
 		}
 		
-		// Replace start and end positions with their real positions
-		fieldPosPath.set(0, realStartPos);
-		fieldPosPath.set(fieldPosPath.size() - 1, realGoalPos);
+		int goal = index(sGoal);
+		int s = index(sStart);
+		int length = 0;
+		pathBuffer[length++] = s;
 		
-		List<Pose2d> pathPoses = new ArrayList<>();
-		pathPoses.add(
-			new Pose2d(fieldPosPath.get(0), fieldPosPath.get(1).minus(fieldPosPath.get(0)).getAngle()));
-		for (int i = 1; i < fieldPosPath.size() - 1; i++) {
-			Translation2d last = fieldPosPath.get(i - 1);
-			Translation2d current = fieldPosPath.get(i);
-			Translation2d next = fieldPosPath.get(i + 1);
+		// No path visits a node twice, so this only stops a walk over a half-finished search from looping forever
+		while (length < pathBuffer.length) {
+			int sx = s / nodesY;
+			int sy = s % nodesY;
 			
-			Translation2d anchor1 = current.minus(last).times(SMOOTHING_ANCHOR_PCT).plus(last);
-			Rotation2d heading1 = current.minus(last).getAngle();
-			Translation2d anchor2 = current.minus(next).times(SMOOTHING_ANCHOR_PCT).plus(next);
-			Rotation2d heading2 = next.minus(anchor2).getAngle();
+			// Follow the cheapest edge + g rather than just the lowest g, which is what the search itself minimizes and
+			// keeps the walk off of edges that a repair has just blocked
+			int next = goal;
+			double minValue = Double.POSITIVE_INFINITY;
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					if ((x != sx || y != sy) && inBounds(x, y) && !obstacles.isObstacle(x * nodesY + y)) {
+						double value = state.g(x * nodesY + y) + cost(sx, sy, x, y, obstacles);
+						if (value < minValue) {
+							minValue = value;
+							next = x * nodesY + y;
+						}
+					}
+				}
+			}
+			s = next;
 			
-			pathPoses.add(new Pose2d(anchor1, heading1));
-			pathPoses.add(new Pose2d(anchor2, heading2));
+			pathBuffer[length++] = s;
+			if (s == goal) {
+				break;
+			}
 		}
-		pathPoses.add(
-			new Pose2d(
-				fieldPosPath.get(fieldPosPath.size() - 1),
-				fieldPosPath
-					.get(fieldPosPath.size() - 1)
-					.minus(fieldPosPath.get(fieldPosPath.size() - 2))
-					.getAngle()));
 		
-		return PathPlannerPath.waypointsFromPoses(pathPoses);
+		List<GridPosition> path = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			path.add(new GridPosition(pathBuffer[i] / nodesY, pathBuffer[i] % nodesY));
+		}
+		return path;
 	}
 	
-	private GridPosition findClosestNonObstacle(GridPosition pos, Set<GridPosition> obstacles) {
-		if (!obstacles.contains(pos)) {
-			return pos;
-		}
-		
-		Set<GridPosition> visited = new HashSet<>();
-		
-		Queue<GridPosition> queue = new LinkedList<>(getAllNeighbors(pos));
-		
-		while (!queue.isEmpty()) {
-			GridPosition check = queue.poll();
-			if (!obstacles.contains(check)) {
-				return check;
-			}
-			visited.add(check);
-			
-			for (GridPosition neighbor : getAllNeighbors(check)) {
-				if (!visited.contains(neighbor) && !queue.contains(neighbor)) {
-					queue.add(neighbor);
+	/**
+	 * Pushes the edge cost changes caused by obstacle changes through the search, so that only the affected part of it
+	 * gets recomputed by the next {@link #computeOrImprovePath(int, int, ObstacleGrid, long)}.
+	 * <p>
+	 * A cell's occupancy affects every edge between the nodes of its 3x3 neighborhood (as an endpoint, or as a corner that
+	 * a diagonal move can't cut), so every node there gets its rhs recomputed. As in AD*, changed edge costs also mean the
+	 * incons set goes back into the open set and every open key gets recomputed.
+	 */
+	private void repairChangedCells(int sStart, int sGoal, ObstacleGrid oldObstacles, ObstacleGrid newObstacles) {
+		oldObstacles.forEachDifference(newObstacles, changed -> {
+			int cx = changed / nodesY;
+			int cy = changed % nodesY;
+			for (int x = cx - 1; x <= cx + 1; x++) {
+				for (int y = cy - 1; y <= cy + 1; y++) {
+					if (inBounds(x, y)) {
+						updateState(x * nodesY + y, sStart, sGoal, newObstacles);
+					}
 				}
 			}
-		}
-		return null;
+		});
+
+		state.moveInconsToOpen();
+		state.rekeyOpen(s -> key1(s, sStart), this::key2);
+		state.clearClosed();
 	}
 	
-	private boolean walkable(GridPosition s1, GridPosition s2, Set<GridPosition> obstacles) {
-		int x0 = s1.x;
-		int y0 = s1.y;
-		int x1 = s2.x;
-		int y1 = s2.y;
-		
-		int dx = Math.abs(x1 - x0);
-		int dy = Math.abs(y1 - y0);
-		int x = x0;
-		int y = y0;
-		int n = 1 + dx + dy;
-		int xInc = (x1 > x0) ? 1 : -1;
-		int yInc = (y1 > y0) ? 1 : -1;
-		int error = dx - dy;
-		dx *= 2;
-		dy *= 2;
-		
-		for (; n > 0; n--) {
-			if (obstacles.contains(new GridPosition(x, y))) {
-				return false;
-			}
-			
-			if (error > 0) {
-				x += xInc;
-				error -= dy;
-			} else if (error < 0) {
-				y += yInc;
-				error += dx;
-			} else {
-				x += xInc;
-				y += yInc;
-				error -= dy;
-				error += dx;
-				n--;
+	/**
+	 * Parks the current search and switches to the one for a new goal. A parked search is brought back as it was, and
+	 * gets repaired like any other if the obstacles changed since.
+	 */
+	private void switchSearch(int goal) {
+		ParkedSearch parked = parkedSearches.remove(goal);
+
+		ADStarGridState spare = state;
+		if (searchValid) {
+			parkedSearches.put(searchedGoal, new ParkedSearch(state, plannedObstacles, plannedStart, eps, passInProgress));
+			spare = null;
+			if (parkedSearches.size() > PARKED_SEARCHES) {
+				var leastRecent = parkedSearches.values().iterator();
+				spare = leastRecent.next().state();
+				leastRecent.remove();
 			}
 		}
+		searchedGoal = goal;
 		
-		return true;
+		if (parked == null) {
+			state = spare != null ? spare : new ADStarGridState(nodesX * nodesY);
+			searchValid = false;
+			return;
+		}
+		state = parked.state();
+		plannedObstacles = parked.plannedObstacles();
+		plannedStart = parked.plannedStart();
+		eps = parked.eps();
+		passInProgress = parked.passInProgress();
+		searchValid = true;
 	}
 	
-	private void reset(GridPosition sStart, GridPosition sGoal) {
-		g.clear();
-		rhs.clear();
-		open.clear();
-		incons.clear();
-		closed.clear();
+	private void reset(int sStart, int sGoal) {
+		state.reset();
+		searchValid = true;
+		passInProgress = false;
 		
-		for (int x = 0; x < nodesX; x++) {
-			for (int y = 0; y < nodesY; y++) {
-				g.put(new GridPosition(x, y), Double.POSITIVE_INFINITY);
-				rhs.put(new GridPosition(x, y), Double.POSITIVE_INFINITY);
-			}
-		}
-		
-		rhs.put(sGoal, 0.0);
+		state.setRhs(sGoal, 0.0);
 		
 		eps = EPS;
 		
-		open.put(sGoal, key(sGoal, sStart));
+		state.putOpen(sGoal, key1(sGoal, sStart), key2(sGoal));
 	}
 	
-	private void computeOrImprovePath(
-		GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
+	/**
+	 * @return False if the deadline passed first. The open set keeps the rest of the search, so calling this again picks
+	 * up where it left off.
+	 */
+	private boolean computeOrImprovePath(int sStart, int sGoal, ObstacleGrid obstacles, long deadline) {
+		int expansions = 0;
 		while (true) {
-			var sv = topKey();
-			if (sv == null) {
-				break;
+			int s = state.topOpen();
+			if (s == -1) {
+				countExpansions(expansions);
+				return true;
 			}
-			var s = sv.getFirst();
-			var v = sv.getSecond();
 			
-			if (comparePair(v, key(sStart, sStart)) >= 0 && rhs.get(sStart).equals(g.get(sStart))) {
-				break;
+			double startKey1 = key1(sStart, sStart);
+			double topKey1 = Math.abs(state.openKey1(s) - startKey1) <= KEY_TOLERANCE ? startKey1 : state.openKey1(s);
+			if (ADStarGridState.compareKeys(topKey1, state.openKey2(s), startKey1, key2(sStart)) >= 0
+				&& state.rhs(sStart) == state.g(sStart)) {
+				countExpansions(expansions);
+				return true;
+			}
+
+			// Checking the clock is cheap, but not so cheap that it's worth doing on every expansion
+			if ((++expansions & 15) == 0 && System.nanoTime() - deadline > 0) {
+				countExpansions(expansions - 1);
+				return false;
 			}
 			
-			open.remove(s);
+			state.removeOpen(s);
 			
-			if (g.get(s) > rhs.get(s)) {
-				g.put(s, rhs.get(s));
-				closed.add(s);
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			if (state.g(s) > state.rhs(s)) {
+				state.setG(s, state.rhs(s));
+				state.close(s);
 				
-				for (GridPosition sn : getOpenNeighbors(s, obstacles)) {
-					updateState(sn, sStart, sGoal, obstacles);
-				}
+				updateOpenNeighbors(sx, sy, sStart, sGoal, obstacles);
 			} else {
-				g.put(s, Double.POSITIVE_INFINITY);
-				for (GridPosition sn : getOpenNeighbors(s, obstacles)) {
-					updateState(sn, sStart, sGoal, obstacles);
-				}
+				state.setG(s, Double.POSITIVE_INFINITY);
+				updateOpenNeighbors(sx, sy, sStart, sGoal, obstacles);
 				updateState(s, sStart, sGoal, obstacles);
 			}
 		}
 	}
 	
-	private void updateState(
-		GridPosition s, GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-		if (!s.equals(sGoal)) {
-			rhs.put(s, Double.POSITIVE_INFINITY);
-			
-			for (GridPosition x : getOpenNeighbors(s, obstacles)) {
-				rhs.put(s, Math.min(rhs.get(s), g.get(x) + cost(s, x, obstacles)));
-			}
-		}
-		
-		open.remove(s);
-		
-		if (!g.get(s).equals(rhs.get(s))) {
-			if (!closed.contains(s)) {
-				open.put(s, key(s, sStart));
-			} else {
-				incons.put(s, Pair.of(0.0, 0.0));
+	private void updateOpenNeighbors(int sx, int sy, int sStart, int sGoal, ObstacleGrid obstacles) {
+		for (int x = sx - 1; x <= sx + 1; x++) {
+			for (int y = sy - 1; y <= sy + 1; y++) {
+				if (inBounds(x, y) && !obstacles.isObstacle(x * nodesY + y)) {
+					updateState(x * nodesY + y, sStart, sGoal, obstacles);
+				}
 			}
 		}
 	}
 	
-	private double cost(GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-		if (isCollision(sStart, sGoal, obstacles)) {
-			return Double.POSITIVE_INFINITY;
-		}
-		
-		return heuristic(sStart, sGoal);
-	}
-	
-	private boolean isCollision(GridPosition sStart, GridPosition sEnd, Set<GridPosition> obstacles) {
-		if (obstacles.contains(sStart) || obstacles.contains(sEnd)) {
-			return true;
-		}
-		
-		if (sStart.x != sEnd.x && sStart.y != sEnd.y) {
-			GridPosition s1;
-			GridPosition s2;
-			
-			if (sEnd.x - sStart.x == sStart.y - sEnd.y) {
-				s1 = new GridPosition(Math.min(sStart.x, sEnd.x), Math.min(sStart.y, sEnd.y));
-				s2 = new GridPosition(Math.max(sStart.x, sEnd.x), Math.max(sStart.y, sEnd.y));
-			} else {
-				s1 = new GridPosition(Math.min(sStart.x, sEnd.x), Math.max(sStart.y, sEnd.y));
-				s2 = new GridPosition(Math.max(sStart.x, sEnd.x), Math.min(sStart.y, sEnd.y));
-			}
+	private void updateState(int s, int sStart, int sGoal, ObstacleGrid obstacles) {
+		if (s != sGoal) {
+			int sx = s / nodesY;
+			int sy = s % nodesY;
+			double minRhs = Double.POSITIVE_INFINITY;
 			
-			return obstacles.contains(s1) || obstacles.contains(s2);
-		}
-		
-		return false;
-	}
-	
-	private List<GridPosition> getOpenNeighbors(GridPosition s, Set<GridPosition> obstacles) {
-		List<GridPosition> ret = new ArrayList<>();
-		
-		for (int xMove = -1; xMove <= 1; xMove++) {
-			for (int yMove = -1; yMove <= 1; yMove++) {
-				GridPosition sNext = new GridPosition(s.x + xMove, s.y + yMove);
-				if (!obstacles.contains(sNext)
-					&& sNext.x >= 0
-					&& sNext.x < nodesX
-					&& sNext.y >= 0
-					&& sNext.y < nodesY) {
-					ret.add(sNext);
+			for (int x = sx - 1; x <= sx + 1; x++) {
+				for (int y = sy - 1; y <= sy + 1; y++) {
+					// A node can't be its own successor. Counting it would pin rhs to a stale g, so a repair could never raise it
+					if ((x != sx || y != sy) && inBounds(x, y) && !obstacles.isObstacle(x * nodesY + y)) {
+						minRhs = Math.min(minRhs, state.g(x * nodesY + y) + cost(sx, sy, x, y, obstacles));
+					}
 				}
 			}
+			state.setRhs(s, minRhs);
 		}
-		return ret;
-	}
-	
-	private List<GridPosition> getAllNeighbors(GridPosition s) {
-		List<GridPosition> ret = new ArrayList<>();
 		
-		for (int xMove = -1; xMove <= 1; xMove++) {
-			for (int yMove = -1; yMove <= 1; yMove++) {
-				GridPosition sNext = new GridPosition(s.x + xMove, s.y + yMove);
-				if (sNext.x >= 0 && sNext.x < nodesX && sNext.y >= 0 && sNext.y < nodesY) {
-					ret.add(sNext);
-				}
-			}
-		}
-		return ret;
-	}
-	
-	private Pair<Double, Double> key(GridPosition s, GridPosition sStart) {
-		if (g.get(s) > rhs.get(s)) {
-			return Pair.of(rhs.get(s) + eps * heuristic(sStart, s), rhs.get(s));
-		} else {
-			return Pair.of(g.get(s) + heuristic(sStart, s), g.get(s));
-		}
-	}
-	
-	private Pair<GridPosition, Pair<Double, Double>> topKey() {
-		Map.Entry<GridPosition, Pair<Double, Double>> min = null;
-		for (var entry : open.entrySet()) {
-			if (min == null || comparePair(entry.getValue(), min.getValue()) < 0) {
-				min = entry;
-			}
-		}
+		state.removeOpen(s);
 		
-		if (min == null) {
-			return null;
+		if (state.g(s) != state.rhs(s)) {
+			// Incons only holds overconsistent nodes until the next, less inflated pass. An underconsistent node's g is too low,
+			// so it can never wait, and once eps is down to 1 there is no next pass for anything to wait for
+			if (!state.isClosed(s) || state.g(s) < state.rhs(s) || eps <= 1.0) {
+				state.putOpen(s, key1(s, sStart), key2(s));
+			} else {
+				state.addIncons(s);
+			}
 		}
-		
-		return Pair.of(min.getKey(), min.getValue());
 	}
 	
-	private double heuristic(GridPosition sStart, GridPosition sGoal) {
-		return Math.hypot(sGoal.x - sStart.x, sGoal.y - sStart.y);
-	}
-	
-	private int comparePair(Pair<Double, Double> a, Pair<Double, Double> b) {
-		int first = Double.compare(a.getFirst(), b.getFirst());
-		if (first == 0) {
-			return Double.compare(a.getSecond(), b.getSecond());
+	private double key1(int s, int sStart) {
+		double g = state.g(s);
+		double rhs = state.rhs(s);
+		if (g > rhs) {
+			return rhs + eps * distance(sStart, s);
 		} else {
-			return first;
+			return g + distance(sStart, s);
 		}
 	}
 	
-	private GridPosition getGridPos(Translation2d pos) {
-		int x = (int) Math.floor(pos.getX() / nodeSize);
-		int y = (int) Math.floor(pos.getY() / nodeSize);
-		
-		return new GridPosition(x, y);
-	}
-	
-	private Translation2d gridPosToTranslation2d(GridPosition pos) {
-		return new Translation2d(
-			(pos.x * nodeSize) + (nodeSize / 2.0), (pos.y * nodeSize) + (nodeSize / 2.0));
+	private double key2(int s) {
+		return Math.min(state.g(s), state.rhs(s));
 	}
 	
 	/**
-	 * Represents a node in the pathfinding grid
+	 * A search that's set aside while the planner plans to another goal, with everything needed to pick it back up
 	 *
-	 * @param x X index in the grid
-	 * @param y Y index in the grid
+	 * @param plannedObstacles The obstacles that the search was built against
+	 * @param plannedStart     The start node that the open keys were last computed from
+	 * @param eps              The eps of the search's current pass
+	 * @param passInProgress   Whether that pass ran out of time partway through
 	 */
-	public record GridPosition(int x, int y) implements Comparable<GridPosition> {
-		@Override
-		public int compareTo(GridPosition o) {
-			if (x == o.x) {
-				return Integer.compare(y, o.y);
-			} else {
-				return Integer.compare(x, o.x);
-			}
-		}
+	private record ParkedSearch(
+		ADStarGridState state, ObstacleGrid plannedObstacles, int plannedStart, double eps, boolean passInProgress) {
 	}
 }
@@ -0,0 +1,333 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The static navigation grid of the field: obstacle cells and a clearance map (distance from each cell to the nearest obstacle).
+ * <p>
+ * On the robot this is loaded from {@value #BINARY_PATH}, a compact binary version of PathPlanner's {@value #JSON_PATH}
+ * that the {@code compileNavGrid} Gradle task builds with {@code NavGridCompiler} (in {@code src/navgrid}) and deploys next to it. The binary is
+ * memory mapped and bulk copied into primitive arrays, so loading it doesn't parse anything or create garbage.
+ * If it is missing or unreadable (e.g. in simulation, which deploys straight from {@code src/main/deploy}), the JSON is parsed instead.
+ * <p>
+ * Binary layout, big endian: {@code int} magic ({@value #MAGIC}), {@code int} format version, {@code int} nodesX,
+ * {@code int} nodesY, {@code double} node size, {@code double} field length, {@code double} field width, the obstacle
+ * bitset as {@code long}s (see {@link ObstacleGrid}), then one {@code float} clearance in meters per node.
+ */
+public final class NavGrid {
+	public static final String JSON_PATH = "pathplanner/navgrid.json";
+	public static final String BINARY_PATH = "pathplanner/navgrid.bin";
+	public static final String SETTINGS_PATH = "pathplanner/settings.json";
+	/**
+	 * "NAVG" in ASCII
+	 */
+	private static final int MAGIC = 0x4E415647;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_BYTES = 4 * Integer.BYTES + 3 * Double.BYTES;
+
+	private final double nodeSize;
+	private final double fieldLength;
+	private final double fieldWidth;
+	private final ObstacleGrid obstacles;
+	private final float[] clearance;
+
+	private NavGrid(double nodeSize, double fieldLength, double fieldWidth, ObstacleGrid obstacles, float[] clearance) {
+		this.nodeSize = nodeSize;
+		this.fieldLength = fieldLength;
+		this.fieldWidth = fieldWidth;
+		this.obstacles = obstacles;
+		this.clearance = clearance;
+	}
+
+	/**
+	 * @return A grid covering the given field with no obstacles, for when no navgrid could be loaded
+	 */
+	public static NavGrid empty(double nodeSize, double fieldLength, double fieldWidth) {
+		ObstacleGrid obstacles = ObstacleGrid.empty((int) Math.ceil(fieldLength / nodeSize), (int) Math.ceil(fieldWidth / nodeSize));
+		return new NavGrid(nodeSize, fieldLength, fieldWidth, obstacles, computeClearance(obstacles, nodeSize));
+	}
+
+	/**
+	 * Loads the navgrid from a deploy directory, preferring the compiled binary and falling back to the JSON.
+	 *
+	 * @param deployDirectory The deploy directory, usually {@code Filesystem.getDeployDirectory()}
+	 * @throws IOException If neither file could be read
+	 */
+	public static NavGrid load(File deployDirectory) throws IOException {
+		File binaryFile = new File(deployDirectory, BINARY_PATH);
+		if (binaryFile.exists()) {
+			try {
+				return readBinary(binaryFile);
+			} catch (IOException e) {
+				System.out.println("Couldn't read " + binaryFile + ", falling back to JSON navgrid: " + e.getMessage());
+			}
+		}
+		return readJson(new File(deployDirectory, JSON_PATH));
+	}
+
+	/**
+	 * Reads the robot's bumper dimensions from the PathPlanner GUI settings, so the planner and the GUI agree on the robot's size.
+	 *
+	 * @param deployDirectory The deploy directory, usually {@code Filesystem.getDeployDirectory()}
+	 * @return Half of the diagonal of the robot's bumpers in meters, the radius of the circle it sweeps when it rotates in place
+	 * @throws IOException If settings.json couldn't be read
+	 */
+	public static double readRobotHalfDiagonal(File deployDirectory) throws IOException {
+		File file = new File(deployDirectory, SETTINGS_PATH);
+		JSONObject json;
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			json = (JSONObject) new JSONParser().parse(reader);
+		} catch (ParseException e) {
+			throw new IOException("Malformed settings " + file, e);
+		}
+
+		Object width = json.get("robotWidth");
+		Object length = json.get("robotLength");
+		if (!(width instanceof Number) || !(length instanceof Number)) {
+			throw new IOException("No robot dimensions in " + file);
+		}
+		return Math.hypot(((Number) width).doubleValue(), ((Number) length).doubleValue()) / 2;
+	}
+
+	/**
+	 * Parses a PathPlanner navgrid.json
+	 */
+	public static NavGrid readJson(File file) throws IOException {
+		JSONObject json;
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			json = (JSONObject) new JSONParser().parse(reader);
+		} catch (ParseException e) {
+			throw new IOException("Malformed navgrid " + file, e);
+		}
+
+		double nodeSize = ((Number) json.get("nodeSizeMeters")).doubleValue();
+		JSONArray grid = (JSONArray) json.get("grid");
+		int nodesY = grid.size();
+		int nodesX = ((JSONArray) grid.get(0)).size();
+		ObstacleGrid.Builder builder = new ObstacleGrid.Builder(nodesX, nodesY);
+		for (int row = 0; row < grid.size(); row++) {
+			JSONArray rowArray = (JSONArray) grid.get(row);
+			for (int col = 0; col < rowArray.size(); col++) {
+				if ((boolean) rowArray.get(col)) {
+					builder.set(col, row);
+				}
+			}
+		}
+		ObstacleGrid obstacles = builder.build();
+
+		JSONObject fieldSize = (JSONObject) json.get("field_size");
+		double fieldLength = ((Number) fieldSize.get("x")).doubleValue();
+		double fieldWidth = ((Number) fieldSize.get("y")).doubleValue();
+
+		return new NavGrid(nodeSize, fieldLength, fieldWidth, obstacles, computeClearance(obstacles, nodeSize));
+	}
+
+	/**
+	 * Memory maps and reads a navgrid written by {@link #writeBinary(File)}
+	 */
+	public static NavGrid readBinary(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES) {
+				throw new IOException("Truncated navgrid " + file);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a binary navgrid: " + file);
+			}
+			int version = buffer.getInt();
+			if (version != FORMAT_VERSION) {
+				throw new IOException("Binary navgrid " + file + " has format version " + version + ", expected " + FORMAT_VERSION);
+			}
+			int nodesX = buffer.getInt();
+			int nodesY = buffer.getInt();
+			double nodeSize = buffer.getDouble();
+			double fieldLength = buffer.getDouble();
+			double fieldWidth = buffer.getDouble();
+
+			if (nodesX <= 0 || nodesY <= 0 || (long) nodesX * nodesY > Integer.MAX_VALUE / Long.BYTES) {
+				throw new IOException("Binary navgrid " + file + " has a bad size: " + nodesX + "x" + nodesY);
+			}
+			int nodeCount = nodesX * nodesY;
+			long[] words = new long[ObstacleGrid.wordCount(nodeCount)];
+			float[] clearance = new float[nodeCount];
+			if (buffer.remaining() != (long) words.length * Long.BYTES + (long) nodeCount * Float.BYTES) {
+				throw new IOException("Binary navgrid " + file + " doesn't match its header");
+			}
+			buffer.asLongBuffer().get(words);
+			buffer.position(buffer.position() + words.length * Long.BYTES);
+			buffer.asFloatBuffer().get(clearance);
+
+			return new NavGrid(nodeSize, fieldLength, fieldWidth, ObstacleGrid.fromWords(nodesX, nodesY, words), clearance);
+		}
+	}
+
+	/**
+	 * Writes this navgrid in the binary format read by {@link #readBinary(File)}
+	 */
+	public void writeBinary(File file) throws IOException {
+		long[] words = obstacles.words();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + words.length * Long.BYTES + clearance.length * Float.BYTES);
+		buffer.putInt(MAGIC);
+		buffer.putInt(FORMAT_VERSION);
+		buffer.putInt(obstacles.nodesX());
+		buffer.putInt(obstacles.nodesY());
+		buffer.putDouble(nodeSize);
+		buffer.putDouble(fieldLength);
+		buffer.putDouble(fieldWidth);
+		buffer.asLongBuffer().put(words);
+		buffer.position(buffer.position() + words.length * Long.BYTES);
+		buffer.asFloatBuffer().put(clearance);
+
+		File parent = file.getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Couldn't create " + parent);
+		}
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.setLength(0);
+			out.write(buffer.array());
+		}
+	}
+
+	public double nodeSize() {
+		return nodeSize;
+	}
+
+	public double fieldLength() {
+		return fieldLength;
+	}
+
+	public double fieldWidth() {
+		return fieldWidth;
+	}
+
+	public ObstacleGrid obstacles() {
+		return obstacles;
+	}
+
+	/**
+	 * Grows the obstacles so that a point planned through the free nodes keeps a circle of the given radius clear of them.
+	 * A node is blocked if the edge of its nearest obstacle node is closer than {@code radius} to its center.
+	 *
+	 * @param radius The radius to inflate by, in meters. Zero or less returns the obstacles unchanged.
+	 */
+	public ObstacleGrid inflatedObstacles(double radius) {
+		if (radius <= 0) {
+			return obstacles;
+		}
+
+		ObstacleGrid.Builder builder = obstacles.toBuilder();
+		for (int x = 0; x < obstacles.nodesX(); x++) {
+			for (int y = 0; y < obstacles.nodesY(); y++) {
+				if (edgeClearance(x * obstacles.nodesY() + y) < radius) {
+					builder.set(x, y);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @param index A node index, {@code x * nodesY + y}
+	 * @return The distance in meters from the node's center to the nearest edge of an obstacle node, or infinity if there are no obstacles
+	 */
+	public double edgeClearance(int index) {
+		return clearance[index] - nodeSize / 2;
+	}
+
+	/**
+	 * @param index A node index, {@code x * nodesY + y}
+	 * @return The distance in meters from the node's center to the center of the nearest obstacle node, or infinity if there are no obstacles
+	 */
+	public float clearance(int index) {
+		return clearance[index];
+	}
+
+	/**
+	 * Exact Euclidean distance transform of the obstacle grid (Felzenszwalb and Huttenlocher), one 1D pass down every column
+	 * and then one along every row. O(nodes).
+	 */
+	static float[] computeClearance(ObstacleGrid obstacles, double nodeSize) {
+		int nodesX = obstacles.nodesX();
+		int nodesY = obstacles.nodesY();
+		// Stands in for infinity, since the 1D transform subtracts values from each other
+		double far = 1e20;
+
+		double[] squared = new double[nodesX * nodesY];
+		int longest = Math.max(nodesX, nodesY);
+		double[] f = new double[longest];
+		double[] d = new double[longest];
+		int[] v = new int[longest];
+		double[] z = new double[longest + 1];
+
+		for (int x = 0; x < nodesX; x++) {
+			for (int y = 0; y < nodesY; y++) {
+				f[y] = obstacles.isObstacle(x * nodesY + y) ? 0 : far;
+			}
+			distanceTransform1D(f, nodesY, d, v, z);
+			for (int y = 0; y < nodesY; y++) {
+				squared[x * nodesY + y] = d[y];
+			}
+		}
+
+		float[] clearance = new float[nodesX * nodesY];
+		for (int y = 0; y < nodesY; y++) {
+			for (int x = 0; x < nodesX; x++) {
+				f[x] = squared[x * nodesY + y];
+			}
+			distanceTransform1D(f, nodesX, d, v, z);
+			for (int x = 0; x < nodesX; x++) {
+				clearance[x * nodesY + y] = d[x] >= far ? Float.POSITIVE_INFINITY : (float) (Math.sqrt(d[x]) * nodeSize);
+			}
+		}
+		return clearance;
+	}
+
+	/**
+	 * Squared distance transform of a sampled 1D function, the lower envelope of the parabolas rooted at each sample.
+	 *
+	 * @param f Input samples
+	 * @param n Number of samples
+	 * @param d Output, {@code d[q] = min over p of (q - p)^2 + f[p]}
+	 * @param v Scratch, parabola roots
+	 * @param z Scratch, parabola boundaries (n + 1 long)
+	 */
+	private static void distanceTransform1D(double[] f, int n, double[] d, int[] v, double[] z) {
+		int k = 0;
+		v[0] = 0;
+		z[0] = Double.NEGATIVE_INFINITY;
+		z[1] = Double.POSITIVE_INFINITY;
+		for (int q = 1; q < n; q++) {
+			double s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+			while (s <= z[k]) {
+				k--;
+				s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+			}
+			k++;
+			v[k] = q;
+			z[k] = s;
+			z[k + 1] = Double.POSITIVE_INFINITY;
+		}
+
+		k = 0;
+		for (int q = 0; q < n; q++) {
+			while (z[k + 1] < q) {
+				k++;
+			}
+			d[q] = (q - v[k]) * (q - v[k]) + f[v[k]];
+		}
+	}
+}
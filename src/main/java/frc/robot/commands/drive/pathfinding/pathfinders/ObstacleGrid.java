@@ -0,0 +1,194 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable occupancy grid, stored as a bitset with one bit per node (bit index {@code x * nodesY + y}).
+ * <p>
+ * Snapshots are never modified after they are built, so they can be handed between threads by swapping a reference.
+ * Every snapshot gets a unique, increasing {@link #version()}, so a reader can tell whether anything changed without comparing bits.
+ * Cells off the grid are never obstacles.
+ */
+public final class ObstacleGrid {
+	private static final AtomicLong nextVersion = new AtomicLong();
+
+	private final int nodesX;
+	private final int nodesY;
+	private final long[] bits;
+	private final long version;
+
+	private ObstacleGrid(int nodesX, int nodesY, long[] bits) {
+		this.nodesX = nodesX;
+		this.nodesY = nodesY;
+		this.bits = bits;
+		this.version = nextVersion.incrementAndGet();
+	}
+
+	/**
+	 * Wraps a bitset read from a compiled navgrid. The array is used as is and must not be modified afterward.
+	 */
+	static ObstacleGrid fromWords(int nodesX, int nodesY, long[] words) {
+		if (words.length != wordCount(nodesX * nodesY)) {
+			throw new IllegalArgumentException("Expected " + wordCount(nodesX * nodesY) + " words, got " + words.length);
+		}
+		return new ObstacleGrid(nodesX, nodesY, words);
+	}
+
+	/**
+	 * @return The number of {@code long}s in the bitset of a grid with this many nodes
+	 */
+	static int wordCount(int nodeCount) {
+		return (nodeCount + 63) >>> 6;
+	}
+
+	/**
+	 * @return A grid of the given size with no obstacles
+	 */
+	public static ObstacleGrid empty(int nodesX, int nodesY) {
+		return new Builder(nodesX, nodesY).build();
+	}
+
+	public int nodesX() {
+		return nodesX;
+	}
+
+	public int nodesY() {
+		return nodesY;
+	}
+
+	public int nodeCount() {
+		return nodesX * nodesY;
+	}
+
+	public long version() {
+		return version;
+	}
+
+	public boolean inBounds(int x, int y) {
+		return x >= 0 && x < nodesX && y >= 0 && y < nodesY;
+	}
+
+	public boolean isObstacle(int x, int y) {
+		return inBounds(x, y) && isObstacle(x * nodesY + y);
+	}
+
+	/**
+	 * @param index A node index, {@code x * nodesY + y}. Must be on the grid.
+	 */
+	public boolean isObstacle(int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return The number of obstacle nodes in the grid
+	 */
+	public int count() {
+		int count = 0;
+		for (long word : bits) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * @return True if the other grid is the same size and has exactly the same obstacles, whatever its version
+	 */
+	public boolean sameObstacles(ObstacleGrid other) {
+		return nodesX == other.nodesX && nodesY == other.nodesY && Arrays.equals(bits, other.bits);
+	}
+
+	/**
+	 * Iterates over the nodes that differ between this grid and another grid of the same size.
+	 *
+	 * @param other  The grid to compare against
+	 * @param action Called with the node index of each cell that is an obstacle in exactly one of the two grids
+	 */
+	public void forEachDifference(ObstacleGrid other, IntConsumer action) {
+		for (int word = 0; word < bits.length; word++) {
+			long diff = bits[word] ^ other.bits[word];
+			while (diff != 0) {
+				int bit = Long.numberOfTrailingZeros(diff);
+				action.accept((word << 6) + bit);
+				diff &= diff - 1;
+			}
+		}
+	}
+
+	/**
+	 * @return The backing bitset, for serialization. Must not be modified.
+	 */
+	long[] words() {
+		return bits;
+	}
+
+	/**
+	 * @return A builder starting from this grid's obstacles
+	 */
+	public Builder toBuilder() {
+		return new Builder(nodesX, nodesY, bits.clone());
+	}
+
+	/**
+	 * Mutable builder for {@link ObstacleGrid} snapshots
+	 */
+	public static final class Builder {
+		private final int nodesX;
+		private final int nodesY;
+		private long[] bits;
+
+		public Builder(int nodesX, int nodesY) {
+			this(nodesX, nodesY, new long[wordCount(nodesX * nodesY)]);
+		}
+
+		private Builder(int nodesX, int nodesY, long[] bits) {
+			this.nodesX = nodesX;
+			this.nodesY = nodesY;
+			this.bits = bits;
+		}
+
+		/**
+		 * Marks a node as an obstacle. Nodes off the grid are ignored.
+		 */
+		public Builder set(int x, int y) {
+			if (x >= 0 && x < nodesX && y >= 0 && y < nodesY) {
+				int index = x * nodesY + y;
+				bits[index >>> 6] |= 1L << index;
+			}
+			return this;
+		}
+
+		/**
+		 * Marks every node in the inclusive rectangle [minX, maxX] x [minY, maxY] as an obstacle, clipped to the grid.
+		 */
+		public Builder setRect(int minX, int minY, int maxX, int maxY) {
+			for (int x = Math.max(minX, 0); x <= Math.min(maxX, nodesX - 1); x++) {
+				for (int y = Math.max(minY, 0); y <= Math.min(maxY, nodesY - 1); y++) {
+					int index = x * nodesY + y;
+					bits[index >>> 6] |= 1L << index;
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Marks every obstacle of another grid of the same size as an obstacle here too.
+		 */
+		public Builder or(ObstacleGrid other) {
+			for (int i = 0; i < bits.length; i++) {
+				bits[i] |= other.bits[i];
+			}
+			return this;
+		}
+
+		/**
+		 * Builds an immutable snapshot. The builder must not be used afterward.
+		 */
+		public ObstacleGrid build() {
+			ObstacleGrid grid = new ObstacleGrid(nodesX, nodesY, bits);
+			bits = null;
+			return grid;
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rounds the corners of a simplified grid path into circular arcs. The trajectory generator slows down to
+ * {@code sqrt(acceleration * radius)} through a turn, so every corner gets the widest arc that fits: up to the radius the
+ * robot can take at full speed, as much of the straight segments on either side as it can share with the neighboring
+ * corners, and no wider than keeps it off of the obstacles. Between corners the path is straight.
+ * <p>
+ * Grid paths often turn in a few small steps where the robot could take one wide turn, so neighboring corners that turn
+ * the same way are merged into one where the arc around them is clear.
+ * <p>
+ * The arcs are cubic beziers, so the path's waypoints can be handed to PathPlanner as is.
+ */
+final class PathSmoother {
+	/**
+	 * How much of each straight segment the corners on either end can use together, so some of it stays straight and no
+	 * two waypoints land on top of each other
+	 */
+	private static final double MAX_SEGMENT_SHARE = 0.9;
+	/**
+	 * How much an arc shrinks each time it's found to run into an obstacle
+	 */
+	private static final double SHRINK_FACTOR = 0.7;
+	/**
+	 * Turns shallower than this many radians are treated as straight
+	 */
+	private static final double MIN_TURN = 1e-3;
+
+	private PathSmoother() {
+	}
+
+	/**
+	 * @param points     The path's vertices on the field, starting at the robot and ending at the goal
+	 * @param turnRadius The radius the robot can turn at full speed, beyond which widening an arc doesn't make it any
+	 *                   faster. Infinite to make every arc as wide as fits.
+	 * @param obstacles  The obstacles the arcs have to stay clear of, already inflated by the robot's size
+	 * @param nodeSize   The size of the obstacle grid's nodes, in meters
+	 * @return The smoothed path's waypoints, or an empty list if there are fewer than two points
+	 */
+	static List<Waypoint> smooth(List<Translation2d> points, double turnRadius, ObstacleGrid obstacles, double nodeSize) {
+		if (points.size() < 2) {
+			return new ArrayList<>();
+		}
+
+		// Vertices that the path goes straight through have nothing to round
+		List<Translation2d> corners = new ArrayList<>();
+		corners.add(points.get(0));
+		for (int i = 1; i < points.size(); i++) {
+			if (points.get(i).getDistance(corners.get(corners.size() - 1)) > 1e-6) {
+				corners.add(points.get(i));
+			}
+		}
+		if (corners.size() < 2) {
+			Translation2d start = points.get(0);
+			Translation2d end = points.get(points.size() - 1);
+			return PathPlannerPath.waypointsFromPoses(
+				new Pose2d(start, end.minus(start).getAngle()), new Pose2d(end, end.minus(start).getAngle()));
+		}
+		for (int i = corners.size() - 2; i >= 1; i--) {
+			if (turn(corners.get(i - 1), corners.get(i), corners.get(i + 1)) < MIN_TURN) {
+				corners.remove(i);
+			}
+		}
+
+		// How far each corner is from the original path along the segments before and after it, which is 0 unless it's
+		// merged. Its arc has to start and end at least that far back to stay on the original path.
+		List<Double> reachBefore = new ArrayList<>();
+		List<Double> reachAfter = new ArrayList<>();
+		for (int i = 0; i < corners.size(); i++) {
+			reachBefore.add(0.0);
+			reachAfter.add(0.0);
+		}
+		int merge = 1;
+		while (merge + 2 < corners.size()) {
+			if (!mergeCorners(corners, reachBefore, reachAfter, merge, obstacles, nodeSize)) {
+				merge++;
+			}
+		}
+
+		int last = corners.size() - 1;
+		double[] lengths = new double[last];
+		Translation2d[] directions = new Translation2d[last];
+		for (int i = 0; i < last; i++) {
+			Translation2d segment = corners.get(i + 1).minus(corners.get(i));
+			lengths[i] = segment.getNorm();
+			directions[i] = segment.div(lengths[i]);
+		}
+
+		// How far back along each segment the arc at each corner starts, i.e. radius * tan(turn / 2)
+		double[] turns = new double[last + 1];
+		double[] wanted = new double[last + 1];
+		double[] minCuts = new double[last + 1];
+		double[] cut = new double[last + 1];
+		for (int i = 1; i < last; i++) {
+			turns[i] = turn(corners.get(i - 1), corners.get(i), corners.get(i + 1));
+			wanted[i] = turnRadius * Math.tan(turns[i] / 2);
+			minCuts[i] = Math.max(reachBefore.get(i), reachAfter.get(i));
+			cut[i] = Math.max(minCuts[i], Math.min(wanted[i], Math.min(segmentShare(lengths, i - 1, last), segmentShare(lengths, i, last))));
+		}
+		// A corner can have what its neighbor doesn't need of the segment between them
+		for (int i = 1; i < last; i++) {
+			cut[i] = Math.max(minCuts[i], Math.min(wanted[i], Math.min(
+				MAX_SEGMENT_SHARE * lengths[i - 1] - cut[i - 1],
+				MAX_SEGMENT_SHARE * lengths[i] - cut[i + 1])));
+		}
+
+		// Anchors are the start, where each arc starts and ends, and the goal. Each gap between anchors is straight or an arc.
+		List<Translation2d> anchors = new ArrayList<>();
+		List<Translation2d> outControls = new ArrayList<>();
+		List<Translation2d> inControls = new ArrayList<>();
+		anchors.add(corners.get(0));
+		inControls.add(null);
+		for (int i = 1; i < last; i++) {
+			Translation2d corner = corners.get(i);
+			Translation2d in = directions[i - 1];
+			Translation2d out = directions[i];
+			// Merged corners were checked at their smallest arc, and any other corner can at least round off its node
+			double minCut = Math.max(minCuts[i], Math.min(cut[i], nodeSize / 4));
+			double handle;
+			while (true) {
+				handle = arcHandle(cut[i], turns[i]);
+				if (cut[i] <= minCut || arcClear(corner.minus(in.times(cut[i])), corner.plus(out.times(cut[i])), in, out, handle, obstacles, nodeSize)) {
+					break;
+				}
+				cut[i] = Math.max(minCut, cut[i] * SHRINK_FACTOR);
+			}
+
+			Translation2d arcStart = corner.minus(in.times(cut[i]));
+			Translation2d arcEnd = corner.plus(out.times(cut[i]));
+			addStraight(anchors, outControls, inControls, arcStart);
+			outControls.add(arcStart.plus(in.times(handle)));
+			inControls.add(arcEnd.minus(out.times(handle)));
+			anchors.add(arcEnd);
+		}
+		addStraight(anchors, outControls, inControls, corners.get(last));
+		outControls.add(null);
+
+		List<Waypoint> waypoints = new ArrayList<>(anchors.size());
+		for (int i = 0; i < anchors.size(); i++) {
+			waypoints.add(new Waypoint(inControls.get(i), anchors.get(i), outControls.get(i)));
+		}
+		return waypoints;
+	}
+
+	/**
+	 * Replaces two neighboring corners that turn the same way with one where the segments on either side of them meet, if
+	 * an arc around it can start and end on the original path without running into an obstacle
+	 *
+	 * @return True if they were merged
+	 */
+	private static boolean mergeCorners(List<Translation2d> corners, List<Double> reachBefore, List<Double> reachAfter, int first, ObstacleGrid obstacles, double nodeSize) {
+		Translation2d before = corners.get(first - 1);
+		Translation2d corner1 = corners.get(first);
+		Translation2d corner2 = corners.get(first + 1);
+		Translation2d after = corners.get(first + 2);
+		Translation2d in = corner1.minus(before);
+		Translation2d middle = corner2.minus(corner1);
+		Translation2d out = after.minus(corner2);
+		double cross1 = in.getX() * middle.getY() - in.getY() * middle.getX();
+		double cross2 = middle.getX() * out.getY() - middle.getY() * out.getX();
+		double denominator = in.getX() * out.getY() - in.getY() * out.getX();
+		if (cross1 * cross2 <= 0 || Math.abs(denominator) < 1e-9) {
+			return false;
+		}
+
+		// The meeting point is past the first corner along the incoming segment, and short of the second along the outgoing one
+		double t1 = (middle.getX() * out.getY() - middle.getY() * out.getX()) / denominator;
+		double t2 = (in.getX() * middle.getY() - in.getY() * middle.getX()) / denominator;
+		if (t1 <= 0 || t2 <= 0) {
+			return false;
+		}
+		Translation2d merged = corner1.plus(in.times(t1));
+		double cut = Math.max(reachBefore.get(first) + in.getNorm() * t1, reachAfter.get(first + 1) + out.getNorm() * t2);
+		double lengthBefore = merged.getDistance(before);
+		double lengthAfter = after.getDistance(merged);
+		boolean sharedBefore = first > 1;
+		boolean sharedAfter = first + 2 < corners.size() - 1;
+		if (cut > MAX_SEGMENT_SHARE * lengthBefore * (sharedBefore ? 0.5 : 1) || cut > MAX_SEGMENT_SHARE * lengthAfter * (sharedAfter ? 0.5 : 1)) {
+			return false;
+		}
+
+		Translation2d inDirection = in.div(in.getNorm());
+		Translation2d outDirection = out.div(out.getNorm());
+		double turn = turn(before, merged, after);
+		if (!arcClear(merged.minus(inDirection.times(cut)), merged.plus(outDirection.times(cut)), inDirection, outDirection, arcHandle(cut, turn), obstacles, nodeSize)) {
+			return false;
+		}
+
+		corners.set(first, merged);
+		corners.remove(first + 1);
+		reachBefore.set(first, reachBefore.get(first) + in.getNorm() * t1);
+		reachAfter.set(first, reachAfter.get(first + 1) + out.getNorm() * t2);
+		reachBefore.remove(first + 1);
+		reachAfter.remove(first + 1);
+		return true;
+	}
+
+	/**
+	 * @return How much of a segment a corner at one of its ends gets before the corners share what's left over: all of it
+	 * at the start and goal, which have no arc of their own, and half of it between two corners
+	 */
+	private static double segmentShare(double[] lengths, int segment, int last) {
+		boolean shared = segment > 0 && segment < last - 1;
+		return MAX_SEGMENT_SHARE * lengths[segment] * (shared ? 0.5 : 1);
+	}
+
+	/**
+	 * Adds a straight gap from the last anchor to a new one, with its control points a third of the way along it
+	 */
+	private static void addStraight(List<Translation2d> anchors, List<Translation2d> outControls, List<Translation2d> inControls, Translation2d anchor) {
+		Translation2d previous = anchors.get(anchors.size() - 1);
+		Translation2d third = anchor.minus(previous).div(3);
+		outControls.add(previous.plus(third));
+		inControls.add(anchor.minus(third));
+		anchors.add(anchor);
+	}
+
+	/**
+	 * @return The angle the path turns through at a vertex, between 0 and pi
+	 */
+	private static double turn(Translation2d previous, Translation2d vertex, Translation2d next) {
+		Translation2d in = vertex.minus(previous);
+		Translation2d out = next.minus(vertex);
+		return Math.abs(Math.atan2(in.getX() * out.getY() - in.getY() * out.getX(), in.getX() * out.getX() + in.getY() * out.getY()));
+	}
+
+	/**
+	 * @param cut  How far back from the corner the arc starts
+	 * @param turn The angle the arc turns through
+	 * @return How far the control points sit from the ends of a cubic bezier that follows the arc
+	 */
+	private static double arcHandle(double cut, double turn) {
+		double radius = cut / Math.tan(turn / 2);
+		return 4.0 / 3.0 * Math.tan(turn / 4) * radius;
+	}
+
+	/**
+	 * Samples the arc's bezier about twice per node, checking that none of the samples land on an obstacle
+	 */
+	private static boolean arcClear(
+		Translation2d start,
+		Translation2d end,
+		Translation2d in,
+		Translation2d out,
+		double handle,
+		ObstacleGrid obstacles,
+		double nodeSize) {
+		Translation2d control1 = start.plus(in.times(handle));
+		Translation2d control2 = end.minus(out.times(handle));
+		double length = start.getDistance(control1) + control1.getDistance(control2) + control2.getDistance(end);
+		int samples = Math.max(2, (int) Math.ceil(2 * length / nodeSize));
+		for (int i = 1; i < samples; i++) {
+			double t = (double) i / samples;
+			double u = 1 - t;
+			double x = u * u * u * start.getX() + 3 * u * u * t * control1.getX() + 3 * u * t * t * control2.getX() + t * t * t * end.getX();
+			double y = u * u * u * start.getY() + 3 * u * u * t * control1.getY() + 3 * u * t * t * control2.getY() + t * t * t * end.getY();
+			if (obstacles.isObstacle((int) Math.floor(x / nodeSize), (int) Math.floor(y / nodeSize))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,66 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+/**
+ * Where moving obstacles are predicted to be over the next few seconds, as one {@link ObstacleGrid} per time slice
+ * layered over the navgrid. A node is reserved during a slice if any obstacle's bounding box touches it at any point
+ * in the slice.
+ * <p>
+ * Immutable, so it can be shared between threads.
+ *
+ * @see GridPathfinder#setObstacleTracks(java.util.List, edu.wpi.first.math.geometry.Translation2d)
+ */
+public final class ReservationTable {
+	/**
+	 * How long each slice is, in seconds
+	 */
+	public static final double SLICE_SECONDS = 0.25;
+	/**
+	 * How far ahead obstacles are predicted, in seconds. Past this, predictions aren't worth much and nothing is reserved.
+	 */
+	public static final double HORIZON_SECONDS = 3.0;
+	private final ObstacleGrid[] slices;
+	private final long createdNanos;
+
+	/**
+	 * @param slices       The reserved nodes during each slice, starting from when the obstacles were measured
+	 * @param createdNanos When the obstacles were measured, in {@link System#nanoTime()}
+	 */
+	ReservationTable(ObstacleGrid[] slices, long createdNanos) {
+		this.slices = slices;
+		this.createdNanos = createdNanos;
+	}
+
+	/**
+	 * @return The number of slices up to the horizon
+	 */
+	public static int sliceCount() {
+		return (int) Math.ceil(HORIZON_SECONDS / SLICE_SECONDS);
+	}
+
+	/**
+	 * @return The seconds since the obstacles were measured
+	 */
+	public double age() {
+		return (System.nanoTime() - createdNanos) / 1e9;
+	}
+
+	/**
+	 * @param seconds The time since the obstacles were measured
+	 * @return The slice that the time falls in, or {@link #sliceCount()} past the horizon
+	 */
+	public int slice(double seconds) {
+		if (seconds >= HORIZON_SECONDS) {
+			return sliceCount();
+		}
+		return Math.max(0, Math.min((int) (seconds / SLICE_SECONDS), sliceCount() - 1));
+	}
+
+	/**
+	 * @param seconds The time since the obstacles were measured
+	 * @return True if an obstacle is predicted to touch the node at that time
+	 */
+	public boolean isReserved(int x, int y, double seconds) {
+		int slice = slice(seconds);
+		return slice < slices.length && slices[slice].isObstacle(x, y);
+	}
+}
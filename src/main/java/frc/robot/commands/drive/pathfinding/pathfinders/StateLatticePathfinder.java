@@ -0,0 +1,535 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A kinodynamic planner running locally in a background thread. It searches a state lattice (Pivtoraiko and Kelly,
+ * 2005) over position, direction of travel and speed.
+ * <p>
+ * The grid planners only know where the robot is. Their paths start off in whatever direction the first grid move goes,
+ * whichever way the robot is moving, and they arrive pointing wherever the last grid move did. Here every state also has
+ * one of 16 directions of travel and one of a few speeds. The robot gets from state to state along motion primitives
+ * that respect its acceleration and the tightest turn it can make at speed, both taken from the {@link RobotConfig} and
+ * {@link PathConstraints}. The search minimizes travel time. It starts from the robot's current velocity (see
+ * {@link #setStartState(Translation2d, Translation2d)}) and arrives in the direction and at the speed given to
+ * {@link #setGoalState(Translation2d, Rotation2d, double)}, so the path hands off to a pre-planned one without slowing
+ * down for a joining path.
+ * <p>
+ * Like {@link LazyThetaStar}, this plans again from scratch whenever the request or the obstacles change.
+ */
+public class StateLatticePathfinder extends GridPathfinder {
+	private static final int HEADINGS = 16;
+	/**
+	 * The grid step along each heading, counterclockwise from +x: a 16-connected neighborhood
+	 */
+	private static final int[][] HEADING_STEPS = {
+		{1, 0}, {2, 1}, {1, 1}, {1, 2}, {0, 1}, {-1, 2}, {-1, 1}, {-2, 1},
+		{-1, 0}, {-2, -1}, {-1, -1}, {-1, -2}, {0, -1}, {1, -2}, {1, -1}, {2, -1}
+	};
+	/**
+	 * The speeds are spaced evenly in speed squared, so every level takes the same distance to accelerate through
+	 */
+	private static final int SPEED_LEVELS = 6;
+	/**
+	 * Besides a single step, straight primitives come in about these lengths, in meters. A single step on a fine navgrid
+	 * is too short to change speed over.
+	 */
+	private static final double[] STRAIGHT_LENGTHS_METERS = {0.5, 1.0};
+	/**
+	 * Turn primitives go one heading to the left or right. They step along the old heading and then along the new one,
+	 * each leg about this long in meters. Longer legs make wider turns that can be taken faster.
+	 */
+	private static final double[] TURN_LEG_LENGTHS_METERS = {0.3, 0.6};
+	/**
+	 * How much the travel time heuristic gets inflated (weighted A*). The path is at most about this much slower than
+	 * the fastest one on the lattice, and far fewer states get expanded.
+	 */
+	private static final double HEURISTIC_WEIGHT = 1.5;
+	/**
+	 * Searches give up after expanding this many states per navgrid node, which is a few times what a successful search
+	 * needs. Most failures are approaches that can't be made, e.g. arriving fast at a goal right next to a wall, so the
+	 * planner then drops the goal direction and speed and searches again.
+	 */
+	private static final int MAX_EXPANSIONS_PER_NODE = 16;
+	private static final double GRAVITY = 9.81;
+	private static final int ANY = -1;
+	private final double maxVelocity;
+	private final double maxAcceleration;
+	private final double[] speeds = new double[SPEED_LEVELS];
+	private final double[] speedsSquared = new double[SPEED_LEVELS];
+	/**
+	 * The primitives that continue along each heading
+	 */
+	private final Primitive[][] primitives = new Primitive[HEADINGS][];
+	private final double[] g;
+	private final int[] parent;
+	/**
+	 * The corner node of the turn each state was reached by, or -1 if it was reached in a straight line
+	 */
+	private final int[] corner;
+	private final int[] valueStamp;
+	private final int[] closedStamp;
+	private final IndexedMinHeap open;
+	private int generation = 0;
+	/**
+	 * The cost-to-go to the current goal around the current obstacles, which the search's heuristic is built on
+	 */
+	private CostToGoField goalField;
+	/**
+	 * The obstacles that the current path was planned around. Only touched by the planning thread.
+	 */
+	private ObstacleGrid plannedObstacles;
+	private boolean requestReplan = true;
+	private Translation2d requestStartVelocity = Translation2d.kZero;
+	private Rotation2d requestGoalHeading = null;
+	private double requestGoalVelocity = 0;
+
+	/**
+	 * Create a new pathfinder that runs a state lattice search locally in a background thread
+	 *
+	 * @param robotConfig The robot configuration, which limits the speed and acceleration further. May be null.
+	 * @param constraints The constraints the paths will be followed with
+	 */
+	public StateLatticePathfinder(RobotConfig robotConfig, PathConstraints constraints) {
+		this(robotConfig, constraints, DEFAULT_PLANNING_THREAD_PRIORITY);
+	}
+
+	/**
+	 * Create a new pathfinder that runs a state lattice search locally in a background thread
+	 *
+	 * @param robotConfig            The robot configuration, which limits the speed and acceleration further. May be null.
+	 * @param constraints            The constraints the paths will be followed with
+	 * @param planningThreadPriority The {@link Thread#setPriority(int) priority} of the planning thread,
+	 *                               between {@link Thread#MIN_PRIORITY} and {@link Thread#MAX_PRIORITY}
+	 */
+	public StateLatticePathfinder(RobotConfig robotConfig, PathConstraints constraints, int planningThreadPriority) {
+		super("State Lattice Planning Thread", planningThreadPriority);
+
+		double velocity = constraints.maxVelocityMPS();
+		double acceleration = constraints.maxAccelerationMPSSq();
+		if (robotConfig != null) {
+			velocity = Math.min(velocity, robotConfig.moduleConfig.maxDriveVelocityMPS);
+			// Whichever runs out first: the wheels' grip, or the drive motors at their current limit
+			acceleration = Math.min(acceleration, robotConfig.moduleConfig.wheelCOF * GRAVITY);
+			double driveForce = robotConfig.numModules
+				* robotConfig.moduleConfig.driveMotor.getTorque(robotConfig.moduleConfig.driveCurrentLimit)
+				/ robotConfig.moduleConfig.wheelRadiusMeters;
+			acceleration = Math.min(acceleration, driveForce / robotConfig.massKG);
+		}
+		maxVelocity = velocity;
+		maxAcceleration = acceleration;
+		for (int level = 0; level < SPEED_LEVELS; level++) {
+			speedsSquared[level] = maxVelocity * maxVelocity * level / (SPEED_LEVELS - 1);
+			speeds[level] = Math.sqrt(speedsSquared[level]);
+		}
+		for (int heading = 0; heading < HEADINGS; heading++) {
+			primitives[heading] = createPrimitives(heading);
+		}
+
+		int stateCount = nodesX * nodesY * HEADINGS * SPEED_LEVELS;
+		g = new double[stateCount];
+		parent = new int[stateCount];
+		corner = new int[stateCount];
+		valueStamp = new int[stateCount];
+		closedStamp = new int[stateCount];
+		open = new IndexedMinHeap(stateCount);
+		plannedObstacles = staticObstacles;
+
+		startPlanningThread();
+	}
+
+	@Override
+	public boolean matchesGoalState() {
+		return true;
+	}
+
+	@Override
+	public void setStartPosition(Translation2d startPosition) {
+		requestLock.writeLock().lock();
+		requestStartVelocity = Translation2d.kZero;
+		requestReplan = true;
+		requestLock.writeLock().unlock();
+
+		super.setStartPosition(startPosition);
+	}
+
+	@Override
+	public void setStartState(Translation2d startPosition, Translation2d fieldRelativeVelocity) {
+		requestLock.writeLock().lock();
+		requestStartVelocity = fieldRelativeVelocity;
+		requestReplan = true;
+		newPathAvailable = false;
+		requestLock.writeLock().unlock();
+
+		super.setStartState(startPosition, fieldRelativeVelocity);
+		wakePlanner();
+	}
+
+	@Override
+	public void setGoalPosition(Translation2d goalPosition) {
+		setGoalState(goalPosition, null, 0);
+	}
+
+	@Override
+	public void setGoalState(Translation2d goalPosition, Rotation2d approachHeading, double approachVelocity) {
+		requestLock.writeLock().lock();
+		requestGoalHeading = approachHeading;
+		requestGoalVelocity = approachVelocity;
+		requestLock.writeLock().unlock();
+
+		super.setGoalPosition(goalPosition);
+	}
+
+	@Override
+	protected void onStartChanged() {
+		requestReplan = true;
+	}
+
+	@Override
+	protected void onGoalChanged() {
+		requestReplan = true;
+	}
+
+	@Override
+	protected void onPlanningError(Exception e) {
+		requestLock.writeLock().lock();
+		requestReplan = true;
+		requestLock.writeLock().unlock();
+	}
+
+	@Override
+	protected boolean plan() {
+		requestLock.writeLock().lock();
+		GridPosition start = requestStart;
+		Translation2d realStart = requestRealStartPos;
+		Translation2d startVelocity = requestStartVelocity;
+		GridPosition goal = requestGoal;
+		Translation2d realGoal = requestRealGoalPos;
+		Rotation2d goalHeading = requestGoalHeading;
+		double goalVelocity = requestGoalVelocity;
+		ObstacleGrid obstacles = requestObstacles;
+		boolean replan = requestReplan || obstacles.version() != plannedObstacles.version();
+		requestReplan = false;
+		requestLock.writeLock().unlock();
+
+		if (!replan) {
+			return false;
+		}
+
+		plannedObstacles = obstacles;
+		if (start.equals(goal)) {
+			publishWaypoints(new ArrayList<>(), new ArrayList<>());
+			return true;
+		}
+
+		goalField = computeCostToGo(index(goal), obstacles);
+		if (Double.isInfinite(goalField.costToGo(index(start)))) {
+			publishWaypoints(new ArrayList<>(), new ArrayList<>());
+			return true;
+		}
+
+		int startLevel = speedLevel(startVelocity.getNorm());
+		int startHeading = startLevel == 0 ? 0 : headingIndex(startVelocity.getAngle());
+		int goalLevel = speedLevel(goalVelocity);
+		int goalHeadingIndex = goalHeading == null || goalLevel == 0 ? ANY : headingIndex(goalHeading);
+
+		int end = search(index(start), startHeading, startLevel, index(goal), goalHeadingIndex, goalLevel, obstacles);
+		if (end < 0) {
+			// The approach can't be made from here, so at least get there
+			goalHeadingIndex = ANY;
+			end = search(index(start), startHeading, startLevel, index(goal), ANY, ANY, obstacles);
+		}
+		if (end < 0 && startLevel != 0) {
+			// Nothing fits how the robot is moving right now, e.g. it's heading straight at a wall, so plan as if it had stopped
+			startLevel = 0;
+			end = search(index(start), 0, 0, index(goal), ANY, ANY, obstacles);
+		}
+		if (end < 0) {
+			publishWaypoints(new ArrayList<>(), new ArrayList<>());
+			return true;
+		}
+
+		List<GridPosition> vertices = extractVertices(end);
+		Rotation2d startDirection = startLevel == 0 ? null : startVelocity.getAngle();
+		Rotation2d endDirection = goalHeadingIndex == ANY ? null : goalHeading;
+		publishWaypoints(vertices, createWaypoints(vertices, realStart, realGoal, startDirection, endDirection));
+		return true;
+	}
+
+	/**
+	 * Weighted A* over the lattice. A robot at rest may set off in any direction.
+	 *
+	 * @return The first state found at the goal with the given heading and speed level (either may be {@link #ANY}), or
+	 * -1 if there isn't one
+	 */
+	private int search(int start, int startHeading, int startLevel, int goal, int goalHeading, int goalLevel, ObstacleGrid obstacles) {
+		generation++;
+		open.clear();
+
+		int startState = state(start, startHeading, startLevel);
+		setG(startState, 0);
+		parent[startState] = startState;
+		open.insertOrUpdate(startState, HEURISTIC_WEIGHT * heuristic(start), 0);
+
+		int expansions = 0;
+		while (!open.isEmpty() && expansions < MAX_EXPANSIONS_PER_NODE * nodesX * nodesY) {
+			int s = open.peek();
+			open.remove(s);
+			closedStamp[s] = generation;
+			expansions++;
+
+			int node = s / (HEADINGS * SPEED_LEVELS);
+			int heading = s / SPEED_LEVELS % HEADINGS;
+			int level = s % SPEED_LEVELS;
+			if (node == goal && (goalHeading == ANY || heading == goalHeading) && (goalLevel == ANY || level == goalLevel)) {
+				countExpansions(expansions);
+				return s;
+			}
+
+			if (level == 0) {
+				for (Primitive[] headingPrimitives : primitives) {
+					for (Primitive primitive : headingPrimitives) {
+						if (primitive.isStraight()) {
+							expand(s, node, level, primitive, obstacles);
+						}
+					}
+				}
+			} else {
+				for (Primitive primitive : primitives[heading]) {
+					expand(s, node, level, primitive, obstacles);
+				}
+			}
+		}
+
+		countExpansions(expansions);
+		return -1;
+	}
+
+	/**
+	 * Follows a primitive from an expanded state into every speed level it can end at
+	 */
+	private void expand(int s, int node, int level, Primitive primitive, ObstacleGrid obstacles) {
+		int x = node / nodesY;
+		int y = node % nodesY;
+		int midX = x + primitive.midDx;
+		int midY = y + primitive.midDy;
+		int endX = x + primitive.dx;
+		int endY = y + primitive.dy;
+		if (!inBounds(midX, midY) || !inBounds(endX, endY)) {
+			return;
+		}
+
+		int mid = midX * nodesY + midY;
+		int end = endX * nodesY + endY;
+		double pathCost = lineCost(node, mid, obstacles);
+		if (mid != end) {
+			pathCost += lineCost(mid, end, obstacles);
+		}
+		if (Double.isInfinite(pathCost)) {
+			return;
+		}
+
+		for (int nextLevel = 0; nextLevel < SPEED_LEVELS; nextLevel++) {
+			double averageSpeed = 0.5 * (speeds[level] + speeds[nextLevel]);
+			if (averageSpeed <= 0
+				|| Math.abs(speedsSquared[nextLevel] - speedsSquared[level]) > 2 * maxAcceleration * primitive.length + 1e-9
+				|| Math.max(speedsSquared[level], speedsSquared[nextLevel]) > primitive.maxSpeedSquared) {
+				continue;
+			}
+
+			int next = state(end, nextLevel == 0 ? 0 : primitive.endHeading, nextLevel);
+			if (closedStamp[next] == generation) {
+				continue;
+			}
+
+			// Constant acceleration between the two speeds, slowed down near obstacles like the other planners
+			double newG = g(s) + pathCost * nodeSize / averageSpeed;
+			double h = heuristic(end);
+			if (newG < g(next) && !Double.isInfinite(h)) {
+				setG(next, newG);
+				parent[next] = s;
+				corner[next] = mid != end ? mid : -1;
+				open.insertOrUpdate(next, newG + HEURISTIC_WEIGHT * h, -newG);
+			}
+		}
+	}
+
+	/**
+	 * The time to get from a node to the goal along the shortest grid path at full speed. Only the lattice's
+	 * 16-connected moves can be a little shorter than the grid path, so this is nearly a lower bound.
+	 */
+	private double heuristic(int node) {
+		return goalField.costToGo(node) * nodeSize / maxVelocity;
+	}
+
+	/**
+	 * @return The nodes where the path starts, changes direction and ends
+	 */
+	private List<GridPosition> extractVertices(int end) {
+		List<GridPosition> vertices = new ArrayList<>();
+		int s = end;
+		while (parent[s] != s) {
+			int p = parent[s];
+			int node = s / (HEADINGS * SPEED_LEVELS);
+			vertices.add(new GridPosition(node / nodesY, node % nodesY));
+
+			if (corner[s] >= 0) {
+				vertices.add(new GridPosition(corner[s] / nodesY, corner[s] % nodesY));
+			}
+			s = p;
+		}
+		int startNode = s / (HEADINGS * SPEED_LEVELS);
+		vertices.add(new GridPosition(startNode / nodesY, startNode % nodesY));
+		Collections.reverse(vertices);
+		return vertices;
+	}
+
+	/**
+	 * Turns the path's vertices into waypoints, dropping the ones in the middle of a straight line. Every waypoint
+	 * points along the path, except that the ends point in the start and goal directions if there are any.
+	 */
+	private List<Waypoint> createWaypoints(
+		List<GridPosition> vertices,
+		Translation2d realStartPos,
+		Translation2d realGoalPos,
+		Rotation2d startDirection,
+		Rotation2d endDirection) {
+		List<Translation2d> points = new ArrayList<>();
+		for (GridPosition vertex : vertices) {
+			points.add(gridPosToTranslation2d(vertex));
+		}
+		points.set(0, realStartPos);
+		points.set(points.size() - 1, realGoalPos);
+
+		List<Translation2d> corners = new ArrayList<>();
+		corners.add(points.get(0));
+		for (int i = 1; i < points.size() - 1; i++) {
+			Translation2d in = points.get(i).minus(corners.get(corners.size() - 1));
+			Translation2d out = points.get(i + 1).minus(points.get(i));
+			if (Math.abs(in.getX() * out.getY() - in.getY() * out.getX()) > 1e-9 || in.getX() * out.getX() + in.getY() * out.getY() < 0) {
+				corners.add(points.get(i));
+			}
+		}
+		corners.add(points.get(points.size() - 1));
+		if (corners.size() < 2 || corners.get(0).getDistance(corners.get(corners.size() - 1)) < 1e-6) {
+			return new ArrayList<>();
+		}
+
+		List<Pose2d> poses = new ArrayList<>();
+		poses.add(new Pose2d(corners.get(0), startDirection != null ? startDirection : corners.get(1).minus(corners.get(0)).getAngle()));
+		for (int i = 1; i < corners.size() - 1; i++) {
+			poses.add(new Pose2d(corners.get(i), corners.get(i + 1).minus(corners.get(i - 1)).getAngle()));
+		}
+		int last = corners.size() - 1;
+		poses.add(new Pose2d(corners.get(last), endDirection != null ? endDirection : corners.get(last).minus(corners.get(last - 1)).getAngle()));
+
+		return PathPlannerPath.waypointsFromPoses(poses);
+	}
+
+	private Primitive[] createPrimitives(int heading) {
+		List<Primitive> list = new ArrayList<>();
+		int[] step = HEADING_STEPS[heading];
+		double stepLength = Math.hypot(step[0], step[1]) * nodeSize;
+
+		List<Integer> straightSteps = new ArrayList<>(List.of(1));
+		for (double length : STRAIGHT_LENGTHS_METERS) {
+			int steps = Math.max(1, (int) Math.round(length / stepLength));
+			if (!straightSteps.contains(steps)) {
+				straightSteps.add(steps);
+			}
+		}
+		for (int steps : straightSteps) {
+			list.add(new Primitive(steps * step[0], steps * step[1], steps * step[0], steps * step[1], heading, steps * stepLength, Double.POSITIVE_INFINITY));
+		}
+
+		for (int turn = -1; turn <= 1; turn += 2) {
+			int newHeading = Math.floorMod(heading + turn, HEADINGS);
+			int[] newStep = HEADING_STEPS[newHeading];
+			double newStepLength = Math.hypot(newStep[0], newStep[1]) * nodeSize;
+			double angle = Math.abs(Math.atan2(
+				step[0] * newStep[1] - step[1] * newStep[0],
+				step[0] * newStep[0] + step[1] * newStep[1]));
+
+			List<Integer> legSteps = new ArrayList<>();
+			for (double length : TURN_LEG_LENGTHS_METERS) {
+				int steps = Math.max(1, (int) Math.round(length / Math.max(stepLength, newStepLength)));
+				if (!legSteps.contains(steps)) {
+					legSteps.add(steps);
+				}
+			}
+			for (int steps : legSteps) {
+				double length = steps * (stepLength + newStepLength);
+				// Turning through the angle evenly along the primitive, the sideways acceleration is v^2 * angle / length
+				list.add(new Primitive(
+					steps * (step[0] + newStep[0]),
+					steps * (step[1] + newStep[1]),
+					steps * step[0],
+					steps * step[1],
+					newHeading,
+					length,
+					maxAcceleration * length / angle));
+			}
+		}
+
+		return list.toArray(new Primitive[0]);
+	}
+
+	private int speedLevel(double speed) {
+		double level = Math.min(speed, maxVelocity) / maxVelocity;
+		return (int) Math.round(level * level * (SPEED_LEVELS - 1));
+	}
+
+	private static int headingIndex(Rotation2d direction) {
+		int closest = 0;
+		double closestDifference = Double.POSITIVE_INFINITY;
+		for (int heading = 0; heading < HEADINGS; heading++) {
+			double difference = Math.abs(Math.IEEEremainder(
+				Math.atan2(HEADING_STEPS[heading][1], HEADING_STEPS[heading][0]) - direction.getRadians(), 2 * Math.PI));
+			if (difference < closestDifference) {
+				closestDifference = difference;
+				closest = heading;
+			}
+		}
+		return closest;
+	}
+
+	private static int state(int node, int heading, int level) {
+		return (node * HEADINGS + heading) * SPEED_LEVELS + level;
+	}
+
+	private double g(int s) {
+		return valueStamp[s] == generation ? g[s] : Double.POSITIVE_INFINITY;
+	}
+
+	private void setG(int s, double value) {
+		valueStamp[s] = generation;
+		g[s] = value;
+	}
+
+	/**
+	 * A move from a node along one heading, ending at an offset on the grid and along a (possibly different) heading
+	 *
+	 * @param dx              The offset to the end node
+	 * @param dy              The offset to the end node
+	 * @param midDx           The offset to the corner of a turn, the same as the end for a straight line
+	 * @param midDy           The offset to the corner of a turn, the same as the end for a straight line
+	 * @param endHeading      The heading at the end
+	 * @param length          The length in meters
+	 * @param maxSpeedSquared The fastest the primitive can be taken without exceeding the maximum acceleration sideways
+	 */
+	private record Primitive(int dx, int dy, int midDx, int midDy, int endHeading, double length, double maxSpeedSquared) {
+		boolean isStraight() {
+			return dx == midDx && dy == midDy;
+		}
+	}
+}
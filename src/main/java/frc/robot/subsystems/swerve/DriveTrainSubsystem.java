@@ -8,6 +8,7 @@ import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.config.PIDConstants;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import com.pathplanner.lib.path.PathPlannerPath;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
@@ -37,7 +38,10 @@ import frc.robot.Constants.RobotConstants;
 import frc.robot.Flags;
 import frc.robot.Robot;
 import frc.robot.commands.drive.pathfinding.PathfindingManager;
+import frc.robot.commands.drive.pathfinding.pathfinders.HierarchicalPathfinder;
+import frc.robot.commands.drive.pathfinding.pathfinders.LazyThetaStar;
 import frc.robot.commands.drive.pathfinding.pathfinders.LocalADStar2;
+import frc.robot.commands.drive.pathfinding.pathfinders.StateLatticePathfinder;
 import frc.robot.subsystems.staticsubsystems.LimeLight;
 import frc.robot.subsystems.staticsubsystems.LimeLight.LimeyApriltagReading;
 import frc.robot.subsystems.staticsubsystems.QuestNav;
@@ -139,6 +143,10 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	private Rotation2d lockedHeading;
 	private RobotConfig config;
 	private boolean has = false;
+	/**
+	 * The path last published to chosen_path, so it's only converted again when the pick changes
+	 */
+	private PathPlannerPath publishedChosenPath = null;
 	
 	// private final AprilTagHandler aprilTagHandler;
 	public DriveTrainSubsystem(/*AprilTagHandler aprilTagHandler*/) {
@@ -185,7 +193,15 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		this.configureAutoBuilder();
 		
 		System.out.println("Initialized DriveTrainSubsystem");
-		PathfindingManager.configurePathfinder(new LocalADStar2());
+		if (Flags.DriveTrain.USE_ANY_ANGLE_PATHFINDING) {
+			PathfindingManager.configurePathfinder(new LazyThetaStar());
+		} else if (Flags.DriveTrain.USE_HIERARCHICAL_PATHFINDING) {
+			PathfindingManager.configurePathfinder(new HierarchicalPathfinder());
+		} else if (Flags.DriveTrain.USE_STATE_LATTICE_PATHFINDING) {
+			PathfindingManager.configurePathfinder(new StateLatticePathfinder(config, PathfindingManager.getPathfindingConstraints()));
+		} else {
+			PathfindingManager.configurePathfinder(new LocalADStar2());
+		}
 		
 		if (Flags.DriveTrain.ENABLE_DYNAMIC_PATHFINDING && Util.isSim()) {
 			System.out.println("pathplanner test");
@@ -487,6 +503,14 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		// System.out.println(module.getName() + " " + TroyMathUtil.roundNearestHundredth(module.getTurningEncoderPositionConverted()));
 		// }
 		
+		if (Flags.DriveTrain.ENABLE_DYNAMIC_PATHFINDING) {
+			// Have the command for the target picked on the GUI ready before the driver asks for it
+			int selection = RoboGUI.getPressedTargetReef();
+			PathfindingManager highlighted = selection >= 1 && selection <= reefedPathfindingManagers.size() ? reefedPathfindingManagers.get(selection - 1) : null;
+			Command currentCommand = this.getCurrentCommand();
+			PathfindingManager.prepareCommands(current, highlighted, currentCommand == null || currentCommand == this.getDefaultCommand());
+		}
+
 		this.updateOdometry();
 		// this.updateOdometryWithJetsonVision();
 		field.setRobotPose(getPose());
@@ -508,9 +532,16 @@ public class DriveTrainSubsystem extends SubsystemBase {
 			} else {
 				// System.out.println("command running");
 			}
-			var poses = Util.convertPPTrajStateListToDoubleArray(reefedPathfindingManagers.get(4).getBestPath(getPose()).getIdealTrajectory(config).orElseThrow().getStates());
-			// field.getRobotObject().setPoses(poses);
-			chosenPathPub.set(poses);
+			// Show the path picked ahead of time for the highlighted target, picking one here would block the loop on the chooser
+			PathPlannerPath chosenPath = PathfindingManager.getSpeculatedPath();
+			if (chosenPath != null && chosenPath != publishedChosenPath) {
+				chosenPath.getIdealTrajectory(config).ifPresent(trajectory -> {
+					var poses = Util.convertPPTrajStateListToDoubleArray(trajectory.getStates());
+					// field.getRobotObject().setPoses(poses);
+					chosenPathPub.set(poses);
+				});
+				publishedChosenPath = chosenPath;
+			}
             /*
             PathPlannerPath p = PathfindingManager.getNewestPathfindingPath();
             if (p != null) {
@@ -0,0 +1,44 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Build time entry point that compiles PathPlanner's navgrid.json into the binary navgrid that {@link NavGrid} memory maps on the robot.
+ * Lives in the {@code navgrid} source set, so it's only on the {@code compileNavGrid} Gradle task's classpath and never in the robot jar.
+ * <p>
+ * Usage: {@code NavGridCompiler <navgrid.json> <navgrid.bin>}
+ */
+public final class NavGridCompiler {
+	private NavGridCompiler() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: NavGridCompiler <navgrid.json> <navgrid.bin>");
+			System.exit(1);
+		}
+
+		File input = new File(args[0]);
+		File output = new File(args[1]);
+		NavGrid navGrid = NavGrid.readJson(input);
+		navGrid.writeBinary(output);
+
+		// Read it back so a bad artifact fails the build instead of silently falling back to JSON on the robot
+		NavGrid check = NavGrid.readBinary(output);
+		int[] differences = {0};
+		if (check.obstacles().nodesX() == navGrid.obstacles().nodesX() && check.obstacles().nodesY() == navGrid.obstacles().nodesY()) {
+			check.obstacles().forEachDifference(navGrid.obstacles(), index -> differences[0]++);
+		} else {
+			differences[0] = -1;
+		}
+		if (differences[0] != 0) {
+			throw new IOException("Binary navgrid " + output + " doesn't round trip");
+		}
+
+		System.out.println(
+			"Compiled " + input + " -> " + output + " (" + navGrid.obstacles().nodesX() + "x" + navGrid.obstacles().nodesY()
+				+ " nodes, " + navGrid.obstacles().count() + " obstacles, " + output.length() + " bytes)");
+	}
+}
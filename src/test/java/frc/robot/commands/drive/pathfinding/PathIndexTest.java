@@ -0,0 +1,83 @@
+package frc.robot.commands.drive.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PathIndexTest {
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * @return A straight path along x, with a point every 0.1 m
+	 */
+	private static List<Pose2d> straight(int points) {
+		List<Pose2d> poses = new ArrayList<>();
+		for (int i = 0; i < points; i++) {
+			poses.add(new Pose2d(i * 0.1, 0, Rotation2d.kZero));
+		}
+		return poses;
+	}
+
+	@Test
+	void measuresArcLength() {
+		PathIndex index = new PathIndex(straight(41));
+
+		assertEquals(41, index.size());
+		assertEquals(4.0, index.getLength(), EPSILON);
+		assertEquals(1.0, index.getDistance(10), EPSILON);
+		assertEquals(1.05, index.distanceAt(10.5), EPSILON);
+	}
+
+	@Test
+	void indexBeforeEndFindsTheLastPointFartherOut() {
+		PathIndex index = new PathIndex(straight(41));
+
+		// Point 30 is exactly 1 m from the end, so the last point farther out is 29
+		assertEquals(29, index.indexBeforeEnd(1.0));
+		assertEquals(34, index.indexBeforeEnd(0.55));
+		assertEquals(39, index.indexBeforeEnd(0));
+		assertEquals(-1, index.indexBeforeEnd(4.0));
+		assertEquals(-1, index.indexBeforeEnd(10));
+	}
+
+	@Test
+	void locateInterpolatesAlongTheClosestSegment() {
+		PathIndex index = new PathIndex(straight(41));
+
+		assertEquals(12.5, index.locate(new Translation2d(1.25, 0.3), 0, 10), EPSILON);
+		assertEquals(0, index.locate(new Translation2d(-1, 0), 0, 10), EPSILON);
+		assertEquals(40, index.locate(new Translation2d(5, 0), 0, 10), EPSILON);
+	}
+
+	@Test
+	void locateStaysInItsWindowOnAPathThatComesBack() {
+		// Out 4 m and back 5 cm to the side, like an approach that loops back past where it started
+		List<Pose2d> poses = straight(41);
+		for (int i = 1; i <= 40; i++) {
+			poses.add(new Pose2d(4 - i * 0.1, 0.05, Rotation2d.k180deg));
+		}
+		PathIndex index = new PathIndex(poses);
+		// Closer to the way back than the way out
+		Translation2d position = new Translation2d(1, 0.04);
+
+		assertEquals(10, index.locate(position, 0, 2), EPSILON);
+		assertEquals(70, index.locate(position, 0, 100), EPSILON);
+		assertEquals(70, index.locate(position, 5, 3), EPSILON);
+	}
+
+	@Test
+	void keepsThePosesRotations() {
+		List<Pose2d> poses = straight(3);
+		poses.set(2, new Pose2d(0.2, 0, Rotation2d.kCCW_90deg));
+		PathIndex index = new PathIndex(poses);
+
+		assertEquals(0.2, index.getPose(2).getX(), EPSILON);
+		assertEquals(Math.PI / 2, index.getPose(2).getRotation().getRadians(), EPSILON);
+		assertEquals(0, index.getPose(1).getRotation().getRadians(), EPSILON);
+	}
+}
@@ -0,0 +1,70 @@
+package frc.robot.commands.drive.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.config.ModuleConfig;
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathConstraints;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import org.junit.jupiter.api.Test;
+
+class TrajectoryRetimerTest {
+	private static final double EPSILON = 1e-9;
+	private static final double MODULE_OFFSET = 0.318;
+	private static final double MAX_DRIVE_VELOCITY = 5.45;
+	private static final double WHEEL_COF = 1.542;
+
+	private static final RobotConfig ROBOT_CONFIG = new RobotConfig(
+		50, 7,
+		new ModuleConfig(0.051, MAX_DRIVE_VELOCITY, WHEEL_COF, DCMotor.getNEO(1).withReduction(6.75), 60, 1),
+		new Translation2d(MODULE_OFFSET, MODULE_OFFSET),
+		new Translation2d(MODULE_OFFSET, -MODULE_OFFSET),
+		new Translation2d(-MODULE_OFFSET, MODULE_OFFSET),
+		new Translation2d(-MODULE_OFFSET, -MODULE_OFFSET));
+	private static final PathConstraints CONSTRAINTS = new PathConstraints(3, 2, 540, 540, 12);
+
+	@Test
+	void keepsTheConstraintsWithoutAConfig() {
+		assertSame(CONSTRAINTS, TrajectoryRetimer.constraints(null, CONSTRAINTS, 11));
+	}
+
+	@Test
+	void clampsTheBatteryVoltage() {
+		PathConstraints full = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 12);
+		PathConstraints overcharged = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 13.5);
+		PathConstraints brownedOut = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 6);
+		PathConstraints lowest = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 9);
+
+		assertEquals(12, overcharged.nominalVoltageVolts(), EPSILON);
+		assertEquals(full.maxVelocityMPS(), overcharged.maxVelocityMPS(), EPSILON);
+		assertEquals(9, brownedOut.nominalVoltageVolts(), EPSILON);
+		assertEquals(lowest.maxVelocityMPS(), brownedOut.maxVelocityMPS(), EPSILON);
+	}
+
+	@Test
+	void deratesTheTopSpeedWithVoltage() {
+		PathConstraints full = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 12);
+		PathConstraints sagging = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 10.5);
+
+		assertTrue(full.maxVelocityMPS() < MAX_DRIVE_VELOCITY);
+		assertEquals(full.maxVelocityMPS() * 10.5 / 12, sagging.maxVelocityMPS(), EPSILON);
+		// Grip and the current limit don't depend on the battery
+		assertEquals(full.maxAccelerationMPSSq(), sagging.maxAccelerationMPSSq(), EPSILON);
+		assertTrue(full.maxAccelerationMPSSq() < WHEEL_COF * 9.81);
+	}
+
+	@Test
+	void keepsTheTighterAngularLimits() {
+		double driveBaseRadius = Math.hypot(MODULE_OFFSET, MODULE_OFFSET);
+		PathConstraints loose = TrajectoryRetimer.constraints(ROBOT_CONFIG, CONSTRAINTS, 12);
+		assertEquals(loose.maxVelocityMPS() / driveBaseRadius, loose.maxAngularVelocityRadPerSec(), EPSILON);
+		assertEquals(loose.maxAccelerationMPSSq() / driveBaseRadius, loose.maxAngularAccelerationRadPerSecSq(), EPSILON);
+
+		PathConstraints tight = TrajectoryRetimer.constraints(ROBOT_CONFIG, new PathConstraints(3, 2, 1, 2, 12), 12);
+		assertEquals(1, tight.maxAngularVelocityRadPerSec(), EPSILON);
+		assertEquals(2, tight.maxAngularAccelerationRadPerSecSq(), EPSILON);
+	}
+}
@@ -0,0 +1,88 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ADStarGridStateTest {
+	private static final int NODES = 59 * 27;
+
+	@Test
+	void untouchedNodesAreInfinite() {
+		ADStarGridState state = new ADStarGridState(NODES);
+		state.setRhs(5, 2);
+
+		assertEquals(Double.POSITIVE_INFINITY, state.g(5));
+		assertEquals(2, state.rhs(5));
+		assertEquals(Double.POSITIVE_INFINITY, state.g(6));
+		assertEquals(Double.POSITIVE_INFINITY, state.rhs(6));
+	}
+
+	@Test
+	void resetForgetsEverything() {
+		ADStarGridState state = new ADStarGridState(NODES);
+		state.setG(1, 1);
+		state.setRhs(1, 1);
+		state.putOpen(2, 3, 4);
+		state.addIncons(3);
+		state.close(4);
+		state.reset();
+
+		assertEquals(Double.POSITIVE_INFINITY, state.g(1));
+		assertEquals(Double.POSITIVE_INFINITY, state.rhs(1));
+		assertFalse(state.isOpen(2));
+		assertEquals(0, state.openSize());
+		assertEquals(-1, state.topOpen());
+		assertFalse(state.isClosed(4));
+		// The node that was inconsistent before the reset doesn't come back
+		state.moveInconsToOpen();
+		assertEquals(0, state.openSize());
+
+		// The nodes are usable again straight away
+		state.setG(1, 7);
+		assertEquals(7, state.g(1));
+		assertEquals(Double.POSITIVE_INFINITY, state.rhs(1));
+	}
+
+	@Test
+	void inconsNodesMoveToOpenOnce() {
+		ADStarGridState state = new ADStarGridState(NODES);
+		state.putOpen(10, 5, 5);
+		state.addIncons(20);
+		state.addIncons(30);
+		state.addIncons(20);
+		state.moveInconsToOpen();
+		state.rekeyOpen(node -> node, node -> 0);
+
+		assertEquals(3, state.openSize());
+		assertEquals(10, state.topOpen());
+		assertEquals(20, state.openKey1(20));
+		assertTrue(state.isOpen(30));
+
+		state.moveInconsToOpen();
+		assertEquals(3, state.openSize());
+	}
+
+	@Test
+	void clearClosedOnlyEmptiesTheClosedSet() {
+		ADStarGridState state = new ADStarGridState(NODES);
+		state.setG(8, 1);
+		state.putOpen(8, 1, 1);
+		state.close(9);
+		state.clearClosed();
+
+		assertFalse(state.isClosed(9));
+		assertTrue(state.isOpen(8));
+		assertEquals(1, state.g(8));
+	}
+
+	@Test
+	void comparesKeysLexicographically() {
+		assertTrue(ADStarGridState.compareKeys(1, 9, 2, 0) < 0);
+		assertTrue(ADStarGridState.compareKeys(2, 1, 2, 0) > 0);
+		assertEquals(0, ADStarGridState.compareKeys(2, 1, 2, 1));
+		assertTrue(ADStarGridState.compareKeys(Double.POSITIVE_INFINITY, 0, 3, 3) > 0);
+	}
+}
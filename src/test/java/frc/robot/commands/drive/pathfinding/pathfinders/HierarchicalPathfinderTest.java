@@ -0,0 +1,83 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.assertClear;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.box;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.cost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalPathfinderTest {
+	private static final double EPSILON = 1e-9;
+	/**
+	 * How much more a route through the portals can cost than the cheapest path
+	 */
+	private static final double PORTAL_DETOUR = 1.1;
+
+	/**
+	 * @return The cost of the cheapest path, from AD* with nothing left to improve
+	 */
+	private static double optimalCost(Translation2d start, Translation2d goal, List<Pair<Translation2d, Translation2d>> obstacles) {
+		LocalADStar2 pathfinder = Planning.stopped(() -> new LocalADStar2(Thread.NORM_PRIORITY, 10));
+		return cost(pathfinder, Planning.plan(pathfinder, start, goal, obstacles));
+	}
+
+	/**
+	 * Plans with HPA* and checks the path is a clear walk of grid moves from the start to the goal, once they are moved out of any obstacles
+	 *
+	 * @return The path's cost
+	 */
+	private static double plan(Translation2d start, Translation2d goal, List<Pair<Translation2d, Translation2d>> obstacles) {
+		HierarchicalPathfinder pathfinder = Planning.stopped(HierarchicalPathfinder::new);
+		List<GridPosition> path = Planning.plan(pathfinder, start, goal, obstacles);
+
+		assertClear(pathfinder, path);
+		assertEquals(pathfinder.requestStart, path.get(0));
+		assertEquals(pathfinder.requestGoal, path.get(path.size() - 1));
+		for (int i = 1; i < path.size(); i++) {
+			GridPosition a = path.get(i - 1);
+			GridPosition b = path.get(i);
+			assertTrue(Math.abs(a.x() - b.x()) <= 1 && Math.abs(a.y() - b.y()) <= 1, a + " and " + b + " aren't neighbours");
+		}
+		return cost(pathfinder, path);
+	}
+
+	@Test
+	void nearbyGoalsGetTheCheapestPath() {
+		Translation2d start = new Translation2d(1.5, 1.0);
+		Translation2d goal = new Translation2d(3.2, 4.0);
+
+		assertEquals(optimalCost(start, goal, List.of()), plan(start, goal, List.of()), EPSILON);
+	}
+
+	@Test
+	void routesAcrossTheFieldThroughThePortals() {
+		Translation2d start = new Translation2d(2.0, 4.0);
+		Translation2d goal = new Translation2d(15.0, 4.0);
+		double optimal = optimalCost(start, goal, List.of());
+		double cost = plan(start, goal, List.of());
+
+		assertTrue(cost >= optimal - EPSILON);
+		assertTrue(cost <= optimal * PORTAL_DETOUR, "The route cost " + cost + ", the cheapest path " + optimal);
+	}
+
+	@Test
+	void fallsBackToTheGridWhenAnObstacleBlocksTheRoute() {
+		Translation2d start = new Translation2d(2.0, 4.0);
+		Translation2d goal = new Translation2d(15.0, 4.0);
+		HierarchicalPathfinder pathfinder = Planning.stopped(HierarchicalPathfinder::new);
+		List<GridPosition> route = Planning.plan(pathfinder, start, goal, List.of());
+		var obstacles = List.of(box(pathfinder.gridPosToTranslation2d(route.get(route.size() / 2)), 0.9));
+
+		double optimal = optimalCost(start, goal, obstacles);
+		double cost = plan(start, goal, obstacles);
+
+		assertTrue(cost >= optimal - EPSILON);
+		assertTrue(cost <= optimal * PORTAL_DETOUR, "The route cost " + cost + ", the cheapest path " + optimal);
+	}
+}
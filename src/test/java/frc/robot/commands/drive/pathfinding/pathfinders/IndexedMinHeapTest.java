@@ -0,0 +1,114 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IndexedMinHeapTest {
+	private static final int NODES = 200;
+
+	/**
+	 * Pops every node, checking they come out in key order
+	 *
+	 * @return The nodes in the order they came out
+	 */
+	private static List<Integer> drain(IndexedMinHeap heap) {
+		List<Integer> nodes = new ArrayList<>();
+		double lastKey1 = Double.NEGATIVE_INFINITY;
+		double lastKey2 = Double.NEGATIVE_INFINITY;
+		while (!heap.isEmpty()) {
+			int node = heap.peek();
+			assertTrue(ADStarGridState.compareKeys(lastKey1, lastKey2, heap.key1(node), heap.key2(node)) <= 0,
+				"Node " + node + " came out of order");
+			lastKey1 = heap.key1(node);
+			lastKey2 = heap.key2(node);
+			heap.remove(node);
+			assertFalse(heap.contains(node));
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	@Test
+	void popsInKeyOrderWithTiesBrokenBySecondKey() {
+		IndexedMinHeap heap = new IndexedMinHeap(NODES);
+		heap.insertOrUpdate(3, 2, 5);
+		heap.insertOrUpdate(1, 1, 9);
+		heap.insertOrUpdate(2, 2, 1);
+		heap.insertOrUpdate(0, 3, 0);
+
+		assertEquals(List.of(1, 2, 3, 0), drain(heap));
+		assertEquals(-1, heap.peek());
+	}
+
+	@Test
+	void keepsOrderAfterRandomUpdatesAndRemoves() {
+		Random random = new Random(42);
+		IndexedMinHeap heap = new IndexedMinHeap(NODES);
+		boolean[] inHeap = new boolean[NODES];
+		int size = 0;
+		for (int i = 0; i < 5000; i++) {
+			int node = random.nextInt(NODES);
+			if (random.nextInt(3) == 0) {
+				heap.remove(node);
+				if (inHeap[node]) {
+					size--;
+				}
+				inHeap[node] = false;
+			} else {
+				// Few distinct first keys, so the second key has to break ties
+				heap.insertOrUpdate(node, random.nextInt(10), random.nextDouble());
+				if (!inHeap[node]) {
+					size++;
+				}
+				inHeap[node] = true;
+			}
+			assertEquals(size, heap.size());
+		}
+
+		List<Integer> drained = drain(heap);
+		assertEquals(size, drained.size());
+		for (int node : drained) {
+			assertTrue(inHeap[node]);
+		}
+	}
+
+	@Test
+	void heapifyRestoresOrderAfterUnorderedChanges() {
+		Random random = new Random(7);
+		IndexedMinHeap heap = new IndexedMinHeap(NODES);
+		for (int node = 0; node < NODES; node += 2) {
+			heap.insertOrUpdate(node, random.nextDouble(), random.nextDouble());
+		}
+		// Re-key everything already in the heap and add the rest, like re-keying the open list for a new start
+		for (int i = 0; i < heap.size(); i++) {
+			int node = heap.nodeAt(i);
+			heap.setKeyUnordered(node, random.nextDouble(), random.nextDouble());
+		}
+		for (int node = 1; node < NODES; node += 2) {
+			heap.insertUnordered(node, random.nextDouble(), random.nextDouble());
+		}
+		heap.heapify();
+
+		assertEquals(NODES, drain(heap).size());
+	}
+
+	@Test
+	void clearEmptiesTheHeap() {
+		IndexedMinHeap heap = new IndexedMinHeap(NODES);
+		heap.insertOrUpdate(5, 1, 1);
+		heap.insertOrUpdate(6, 2, 2);
+		heap.clear();
+
+		assertTrue(heap.isEmpty());
+		assertFalse(heap.contains(5));
+		heap.insertOrUpdate(6, 3, 3);
+		assertEquals(6, heap.peek());
+		assertEquals(1, heap.size());
+	}
+}
@@ -0,0 +1,59 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.assertClear;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.box;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.cost;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.length;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LazyThetaStarTest {
+	private static final Translation2d OPEN_START = new Translation2d(1.5, 1.5);
+	private static final Translation2d OPEN_GOAL = new Translation2d(7.0, 2.0);
+	/**
+	 * Either side of the reef, so there's no line of sight between them
+	 */
+	private static final Translation2d REEF_START = new Translation2d(2.5, 4.0);
+	private static final Translation2d REEF_GOAL = new Translation2d(6.5, 4.0);
+
+	@Test
+	void crossesOpenGroundInOneSegment() {
+		LazyThetaStar pathfinder = Planning.stopped(LazyThetaStar::new);
+		List<GridPosition> path = Planning.plan(pathfinder, OPEN_START, OPEN_GOAL, List.of());
+
+		assertEquals(List.of(pathfinder.getGridPos(OPEN_START), pathfinder.getGridPos(OPEN_GOAL)), path);
+	}
+
+	@Test
+	void goesAroundTheReefWithLineOfSightBetweenVertices() {
+		LazyThetaStar pathfinder = Planning.stopped(LazyThetaStar::new);
+		List<GridPosition> path = Planning.plan(pathfinder, REEF_START, REEF_GOAL, List.of());
+
+		assertTrue(path.size() > 2);
+		assertFalse(Double.isInfinite(cost(pathfinder, path)));
+		// Any-angle, so never longer than the best path along grid moves
+		LocalADStar2 grid = Planning.stopped(() -> new LocalADStar2(Thread.NORM_PRIORITY, 10));
+		assertTrue(length(pathfinder, path) <= length(grid, Planning.plan(grid, REEF_START, REEF_GOAL, List.of())));
+	}
+
+	@Test
+	void replansAroundAnObstacleOnTheLine() {
+		LazyThetaStar pathfinder = Planning.stopped(LazyThetaStar::new);
+		Planning.plan(pathfinder, OPEN_START, OPEN_GOAL, List.of());
+
+		pathfinder.setDynamicObstacles(List.of(box(OPEN_START.interpolate(OPEN_GOAL, 0.5), 0.9)), OPEN_START);
+		Planning.untilIdle(pathfinder);
+		List<GridPosition> path = Planning.path(pathfinder);
+
+		assertTrue(path.size() > 2);
+		assertClear(pathfinder, path);
+		assertFalse(Double.isInfinite(cost(pathfinder, path)));
+		assertEquals(pathfinder.getGridPos(OPEN_GOAL), path.get(path.size() - 1));
+	}
+}
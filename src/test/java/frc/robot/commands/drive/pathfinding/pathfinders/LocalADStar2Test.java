@@ -0,0 +1,140 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.assertClear;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.box;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.cost;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.path;
+import static frc.robot.commands.drive.pathfinding.pathfinders.Planning.untilIdle;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LocalADStar2Test {
+	private static final double EPSILON = 1e-9;
+	/**
+	 * A planning budget no pass runs out of, so every pass finishes in one round
+	 */
+	private static final double PLANNING_BUDGET_SECONDS = 10;
+	private static final Translation2d START = new Translation2d(1.5, 7.0);
+	private static final Translation2d GOAL = new Translation2d(5.8, 3.0);
+	/**
+	 * Other reef faces to switch between, as many as there are parked searches
+	 */
+	private static final List<Translation2d> OTHER_GOALS = List.of(
+		new Translation2d(3.2, 4.0), new Translation2d(3.8, 5.2), new Translation2d(5.2, 5.2),
+		new Translation2d(5.8, 4.0), new Translation2d(5.2, 2.8), new Translation2d(3.8, 2.8));
+
+	private static LocalADStar2 planner() {
+		return Planning.stopped(() -> new LocalADStar2(Thread.NORM_PRIORITY, PLANNING_BUDGET_SECONDS));
+	}
+
+	@Test
+	void repairsAroundANewObstacleToTheSameCostAsAFreshSearch() {
+		LocalADStar2 repaired = planner();
+		List<GridPosition> before = Planning.plan(repaired, START, GOAL, List.of());
+		assertEquals(1.0, repaired.getPublishedPathEps());
+
+		// Right in the middle of the path it already has
+		var obstacles = List.of(box(repaired.gridPosToTranslation2d(before.get(before.size() / 2)), 0.9));
+		long expansionsBefore = repaired.getExpansionCount();
+		repaired.setDynamicObstacles(obstacles, START);
+		untilIdle(repaired);
+		long repairExpansions = repaired.getExpansionCount() - expansionsBefore;
+		List<GridPosition> after = path(repaired);
+
+		LocalADStar2 fresh = planner();
+		List<GridPosition> freshPath = Planning.plan(fresh, START, GOAL, obstacles);
+
+		assertNotEquals(before, after);
+		assertClear(repaired, after);
+		assertEquals(before.get(0), after.get(0));
+		assertEquals(before.get(before.size() - 1), after.get(after.size() - 1));
+		assertEquals(1.0, repaired.getPublishedPathEps());
+		assertEquals(cost(fresh, freshPath), cost(repaired, after), EPSILON);
+		assertTrue(repairExpansions < fresh.getExpansionCount(),
+			"Repairing took " + repairExpansions + " expansions, searching from scratch took " + fresh.getExpansionCount());
+	}
+
+	@Test
+	void clearingTheObstacleRestoresTheOriginalCost() {
+		LocalADStar2 pathfinder = planner();
+		List<GridPosition> original = Planning.plan(pathfinder, START, GOAL, List.of());
+		double originalCost = cost(pathfinder, original);
+
+		pathfinder.setDynamicObstacles(List.of(box(pathfinder.gridPosToTranslation2d(original.get(original.size() / 2)), 0.9)), START);
+		untilIdle(pathfinder);
+		assertTrue(cost(pathfinder, path(pathfinder)) > originalCost);
+
+		pathfinder.setDynamicObstacles(List.of(), START);
+		untilIdle(pathfinder);
+		assertEquals(originalCost, cost(pathfinder, path(pathfinder)), EPSILON);
+	}
+
+	@Test
+	void switchingBackToARecentGoalResumesItsSearch() {
+		LocalADStar2 pathfinder = planner();
+		long expansionsBefore = pathfinder.getExpansionCount();
+		List<GridPosition> original = Planning.plan(pathfinder, START, GOAL, List.of());
+		long searchExpansions = pathfinder.getExpansionCount() - expansionsBefore;
+
+		pathfinder.setGoalPosition(OTHER_GOALS.get(0));
+		untilIdle(pathfinder);
+		assertNotEquals(original, path(pathfinder));
+
+		expansionsBefore = pathfinder.getExpansionCount();
+		pathfinder.setGoalPosition(GOAL);
+		untilIdle(pathfinder);
+		long resumeExpansions = pathfinder.getExpansionCount() - expansionsBefore;
+
+		assertEquals(original, path(pathfinder));
+		assertEquals(1.0, pathfinder.getPublishedPathEps());
+		assertTrue(resumeExpansions * 10 < searchExpansions,
+			"Resuming took " + resumeExpansions + " expansions, the search took " + searchExpansions);
+	}
+
+	@Test
+	void resumedSearchesAreRepairedForObstaclesAddedWhileParked() {
+		LocalADStar2 pathfinder = planner();
+		List<GridPosition> original = Planning.plan(pathfinder, START, GOAL, List.of());
+		pathfinder.setGoalPosition(OTHER_GOALS.get(0));
+		untilIdle(pathfinder);
+
+		var obstacles = List.of(box(pathfinder.gridPosToTranslation2d(original.get(original.size() / 2)), 0.9));
+		pathfinder.setDynamicObstacles(obstacles, START);
+		untilIdle(pathfinder);
+		pathfinder.setGoalPosition(GOAL);
+		untilIdle(pathfinder);
+		List<GridPosition> resumed = path(pathfinder);
+
+		LocalADStar2 fresh = planner();
+		assertClear(pathfinder, resumed);
+		assertEquals(cost(fresh, Planning.plan(fresh, START, GOAL, obstacles)), cost(pathfinder, resumed), EPSILON);
+	}
+
+	@Test
+	void forgetsTheLeastRecentGoalOnceEveryParkingSpotIsTaken() {
+		LocalADStar2 pathfinder = planner();
+		long expansionsBefore = pathfinder.getExpansionCount();
+		List<GridPosition> original = Planning.plan(pathfinder, START, GOAL, List.of());
+		long searchExpansions = pathfinder.getExpansionCount() - expansionsBefore;
+		for (Translation2d goal : OTHER_GOALS) {
+			pathfinder.setGoalPosition(goal);
+			untilIdle(pathfinder);
+		}
+		// Parking one more search pushes out the least recent one, which is the goal's
+		pathfinder.setGoalPosition(OTHER_GOALS.get(OTHER_GOALS.size() - 1).plus(new Translation2d(0.6, 0)));
+		untilIdle(pathfinder);
+
+		expansionsBefore = pathfinder.getExpansionCount();
+		pathfinder.setGoalPosition(GOAL);
+		untilIdle(pathfinder);
+
+		assertEquals(original, path(pathfinder));
+		assertEquals(searchExpansions, pathfinder.getExpansionCount() - expansionsBefore);
+	}
+}
@@ -0,0 +1,91 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NavGridTest {
+	private static final double NODE_SIZE = 0.3;
+	private static final int NODES_X = 7;
+	private static final int NODES_Y = 5;
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * @return A navgrid.json with a single obstacle node
+	 */
+	private File singleObstacle(int obstacleX, int obstacleY) throws IOException {
+		StringBuilder grid = new StringBuilder();
+		for (int y = 0; y < NODES_Y; y++) {
+			grid.append(y == 0 ? "[" : ",[");
+			for (int x = 0; x < NODES_X; x++) {
+				grid.append(x == 0 ? "" : ",").append(x == obstacleX && y == obstacleY);
+			}
+			grid.append("]");
+		}
+		File file = directory.resolve("navgrid.json").toFile();
+		Files.writeString(file.toPath(), "{\"field_size\":{\"x\":" + NODES_X * NODE_SIZE + ",\"y\":" + NODES_Y * NODE_SIZE
+			+ "},\"nodeSizeMeters\":" + NODE_SIZE + ",\"grid\":[" + grid + "]}");
+		return file;
+	}
+
+	@Test
+	void clearanceMatchesABruteForceSearch() {
+		Random random = new Random(3);
+		ObstacleGrid.Builder builder = new ObstacleGrid.Builder(59, 27);
+		for (int i = 0; i < 40; i++) {
+			builder.set(random.nextInt(59), random.nextInt(27));
+		}
+		ObstacleGrid obstacles = builder.build();
+
+		float[] clearance = NavGrid.computeClearance(obstacles, NODE_SIZE);
+		for (int node = 0; node < clearance.length; node++) {
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int obstacle = 0; obstacle < clearance.length; obstacle++) {
+				if (obstacles.isObstacle(obstacle)) {
+					nearest = Math.min(nearest, Math.hypot(node / 27 - obstacle / 27, node % 27 - obstacle % 27) * NODE_SIZE);
+				}
+			}
+			assertEquals(nearest, clearance[node], 1e-5, "Clearance of node " + node);
+		}
+	}
+
+	@Test
+	void noObstaclesMeansInfiniteClearance() {
+		NavGrid navGrid = NavGrid.empty(NODE_SIZE, NODES_X * NODE_SIZE, NODES_Y * NODE_SIZE);
+
+		assertEquals(Float.POSITIVE_INFINITY, navGrid.clearance(0));
+		assertEquals(0, navGrid.inflatedObstacles(1).count());
+	}
+
+	@Test
+	void inflatesByTheClearanceToTheObstacleEdges() throws IOException {
+		NavGrid navGrid = NavGrid.readJson(singleObstacle(3, 2));
+		int center = 3 * NODES_Y + 2;
+
+		assertEquals(NODE_SIZE - NODE_SIZE / 2, navGrid.edgeClearance(4 * NODES_Y + 2), 1e-6);
+		assertSame(navGrid.obstacles(), navGrid.inflatedObstacles(0));
+
+		// Reaches the side neighbours (0.15 m from the obstacle's edge) but not the diagonal ones (0.27 m)
+		ObstacleGrid sides = navGrid.inflatedObstacles(0.2);
+		assertEquals(5, sides.count());
+		assertTrue(sides.isObstacle(center) && sides.isObstacle(4 * NODES_Y + 2) && sides.isObstacle(3 * NODES_Y + 1));
+		assertFalse(sides.isObstacle(4 * NODES_Y + 3));
+
+		ObstacleGrid neighbours = navGrid.inflatedObstacles(0.3);
+		assertEquals(9, neighbours.count());
+		assertFalse(neighbours.isObstacle(5 * NODES_Y + 2));
+		// Inflating never touches the navgrid itself
+		assertEquals(1, navGrid.obstacles().count());
+	}
+}
@@ -0,0 +1,62 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ObstacleGridTest {
+	private static final int NODES_X = 59;
+	private static final int NODES_Y = 27;
+
+	@Test
+	void builderSetsAndClipsCells() {
+		ObstacleGrid grid = new ObstacleGrid.Builder(NODES_X, NODES_Y)
+			.set(0, 0)
+			.set(-1, 3)
+			.set(NODES_X, 3)
+			.setRect(NODES_X - 2, NODES_Y - 2, NODES_X + 5, NODES_Y + 5)
+			.build();
+
+		assertTrue(grid.isObstacle(0, 0));
+		assertTrue(grid.isObstacle(NODES_X - 1, NODES_Y - 1));
+		assertFalse(grid.isObstacle(-1, 3));
+		assertEquals(5, grid.count());
+	}
+
+	@Test
+	void forEachDifferenceVisitsExactlyTheChangedCells() {
+		ObstacleGrid before = new ObstacleGrid.Builder(NODES_X, NODES_Y).setRect(10, 10, 12, 12).build();
+		// The last cell is in the bitset's last, partial word
+		ObstacleGrid after = before.toBuilder().set(20, 5).set(NODES_X - 1, NODES_Y - 1).build();
+		ObstacleGrid removed = new ObstacleGrid.Builder(NODES_X, NODES_Y).setRect(10, 10, 12, 11).build();
+
+		List<Integer> added = new ArrayList<>();
+		before.forEachDifference(after, added::add);
+		assertEquals(List.of(20 * NODES_Y + 5, NODES_X * NODES_Y - 1), added);
+
+		List<Integer> cleared = new ArrayList<>();
+		before.forEachDifference(removed, cleared::add);
+		assertEquals(List.of(10 * NODES_Y + 12, 11 * NODES_Y + 12, 12 * NODES_Y + 12), cleared);
+
+		before.forEachDifference(before, node -> {
+			throw new AssertionError("A grid differs from itself at " + node);
+		});
+	}
+
+	@Test
+	void sameObstaclesIgnoresVersion() {
+		ObstacleGrid grid = new ObstacleGrid.Builder(NODES_X, NODES_Y).set(3, 4).build();
+		ObstacleGrid copy = new ObstacleGrid.Builder(NODES_X, NODES_Y).set(3, 4).build();
+		ObstacleGrid other = new ObstacleGrid.Builder(NODES_X, NODES_Y).set(4, 3).build();
+
+		assertNotEquals(grid.version(), copy.version());
+		assertTrue(grid.sameObstacles(copy));
+		assertFalse(grid.sameObstacles(other));
+		assertFalse(ObstacleGrid.empty(NODES_X, NODES_Y).sameObstacles(ObstacleGrid.empty(NODES_Y, NODES_X)));
+	}
+}
@@ -0,0 +1,106 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PathSmootherTest {
+	private static final double EPSILON = 1e-9;
+	private static final double NODE_SIZE = 0.3;
+	private static final ObstacleGrid OPEN_FIELD = ObstacleGrid.empty(59, 27);
+	private static final Translation2d START = new Translation2d(2, 3);
+	/**
+	 * A left turn, 3 m from the start and the goal
+	 */
+	private static final Translation2d CORNER = new Translation2d(5, 3);
+	private static final Translation2d GOAL = new Translation2d(5, 6);
+
+	/**
+	 * @return Points along every bezier between the waypoints, a few centimeters apart
+	 */
+	private static List<Translation2d> sample(List<Waypoint> waypoints) {
+		List<Translation2d> points = new ArrayList<>();
+		for (int i = 1; i < waypoints.size(); i++) {
+			Translation2d p0 = waypoints.get(i - 1).anchor();
+			Translation2d p1 = waypoints.get(i - 1).nextControl();
+			Translation2d p2 = waypoints.get(i).prevControl();
+			Translation2d p3 = waypoints.get(i).anchor();
+			for (int k = 0; k <= 100; k++) {
+				double t = k / 100.0;
+				double u = 1 - t;
+				points.add(p0.times(u * u * u).plus(p1.times(3 * u * u * t)).plus(p2.times(3 * u * t * t)).plus(p3.times(t * t * t)));
+			}
+		}
+		return points;
+	}
+
+	@Test
+	void roundsACornerIntoTheWidestArcThatFits() {
+		List<Waypoint> waypoints = PathSmoother.smooth(List.of(START, CORNER, GOAL), Double.POSITIVE_INFINITY, OPEN_FIELD, NODE_SIZE);
+
+		// The start, where the arc starts and ends, and the goal
+		assertEquals(4, waypoints.size());
+		assertEquals(0, waypoints.get(0).anchor().getDistance(START), EPSILON);
+		assertEquals(0, waypoints.get(3).anchor().getDistance(GOAL), EPSILON);
+		// Nine tenths of each 3 m side, since neither is shared with another corner
+		double cut = 0.9 * 3;
+		assertEquals(CORNER.getX() - cut, waypoints.get(1).anchor().getX(), EPSILON);
+		assertEquals(CORNER.getY() + cut, waypoints.get(2).anchor().getY(), EPSILON);
+
+		// A quarter circle of that radius, tangent to both sides
+		Translation2d center = new Translation2d(CORNER.getX() - cut, CORNER.getY() + cut);
+		for (Translation2d point : sample(waypoints.subList(1, 3))) {
+			assertEquals(cut, point.getDistance(center), cut * 1e-3);
+		}
+	}
+
+	@Test
+	void turnsNoWiderThanTheTurnRadius() {
+		List<Waypoint> waypoints = PathSmoother.smooth(List.of(START, CORNER, GOAL), 0.5, OPEN_FIELD, NODE_SIZE);
+
+		assertEquals(0, waypoints.get(1).anchor().getDistance(new Translation2d(4.5, 3)), EPSILON);
+		assertEquals(0, waypoints.get(2).anchor().getDistance(new Translation2d(5, 3.5)), EPSILON);
+	}
+
+	@Test
+	void shrinksTheArcToClearAnObstacle() {
+		// Right where the widest arc would pass, 1.1 m inside the corner
+		ObstacleGrid obstacles = OPEN_FIELD.toBuilder().set(14, 12).build();
+		List<Waypoint> waypoints = PathSmoother.smooth(List.of(START, CORNER, GOAL), Double.POSITIVE_INFINITY, obstacles, NODE_SIZE);
+
+		double cut = CORNER.getX() - waypoints.get(1).anchor().getX();
+		assertTrue(cut < 0.9 * 3 && cut >= NODE_SIZE / 4, "The arc starts " + cut + " m before the corner");
+		for (Translation2d point : sample(waypoints)) {
+			assertFalse(obstacles.isObstacle((int) Math.floor(point.getX() / NODE_SIZE), (int) Math.floor(point.getY() / NODE_SIZE)),
+				"The path runs into an obstacle at " + point);
+		}
+	}
+
+	@Test
+	void mergesCornersThatTurnTheSameWay() {
+		// Two 45 degree steps that one quarter turn around the corner covers
+		List<Waypoint> waypoints = PathSmoother.smooth(
+			List.of(START, new Translation2d(4.6, 3), new Translation2d(5, 3.4), GOAL), Double.POSITIVE_INFINITY, OPEN_FIELD, NODE_SIZE);
+
+		assertEquals(4, waypoints.size());
+		assertEquals(CORNER.getX() - 0.9 * 3, waypoints.get(1).anchor().getX(), EPSILON);
+	}
+
+	@Test
+	void keepsStraightPathsStraight() {
+		List<Waypoint> waypoints = PathSmoother.smooth(
+			List.of(START, new Translation2d(3, 3), new Translation2d(4, 3)), Double.POSITIVE_INFINITY, OPEN_FIELD, NODE_SIZE);
+
+		assertEquals(2, waypoints.size());
+		for (Translation2d point : sample(waypoints)) {
+			assertEquals(3, point.getY(), EPSILON);
+		}
+		assertTrue(PathSmoother.smooth(List.of(START), Double.POSITIVE_INFINITY, OPEN_FIELD, NODE_SIZE).isEmpty());
+	}
+}
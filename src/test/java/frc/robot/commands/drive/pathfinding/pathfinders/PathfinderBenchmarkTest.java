@@ -0,0 +1,339 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.PathPoint;
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.commands.drive.pathfinding.PathfindingManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs a library of pathfinding scenarios through each planner, headless, and fails if any result regressed past its
+ * tolerance against the baseline recorded in {@code src/test/resources/pathfinding-baseline.csv}.
+ * <p>
+ * Every scenario gets a fresh planner, so no scenario depends on what the one before it left behind. For each scenario
+ * it records the length of the final path, the nodes expanded, the time until the first path, and the time to drive the
+ * final path. The path length, expansions and driving time are checked on every build, and every one of them has to be
+ * in the baseline.
+ * <p>
+ * The time until the first path depends on the machine, so it's only checked with {@code -PbenchmarkTiming}, which
+ * also runs the library once to warm up the JIT and then a few more times, keeping the best of each. Run the tests with
+ * {@code -PrecordBaseline} to record the current results as the new baseline instead, on the machine the timing is
+ * checked on.
+ */
+class PathfinderBenchmarkTest {
+	private static final File BASELINE_FILE = new File("src/test/resources/pathfinding-baseline.csv");
+	private static final double PATH_LENGTH_TOLERANCE = 0.02;
+	private static final double TRAJECTORY_TIME_TOLERANCE = 0.02;
+	private static final double EXPANSIONS_TOLERANCE = 0.10;
+	/**
+	 * Some planners repair or resume searches in the background, so expansions get some slack on top
+	 */
+	private static final double EXPANSIONS_SLACK = 50;
+	/**
+	 * Wall time is noisy, so it's also the best of a few runs, with a relative tolerance and some absolute slack on top
+	 */
+	private static final double PLANNING_TIME_TOLERANCE = 0.5;
+	private static final double PLANNING_TIME_SLACK_MILLIS = 5;
+	private static final int TIMED_RUNS = 3;
+	private static final boolean CHECK_TIMING = Boolean.getBoolean("pathfinding.benchmarkTiming");
+	private static final boolean RECORD_BASELINE = Boolean.getBoolean("pathfinding.recordBaseline");
+	/**
+	 * A path is final once the planner hasn't improved on it for this long
+	 */
+	private static final long SETTLE_MILLIS = 250;
+	private static final long TIMEOUT_MILLIS = 5000;
+	/**
+	 * How far a path can end from the requested goal and still count as a path to it, since goals in obstacles get moved
+	 */
+	private static final double GOAL_TOLERANCE_METERS = 1.5;
+
+	private static final List<Scenario> SCENARIOS = List.of(
+		new Scenario("station to near reef face", new Translation2d(1.5, 1.0), new Translation2d(3.2, 4.0), List.of()),
+		new Scenario("station to far reef face", new Translation2d(1.5, 7.0), new Translation2d(5.8, 3.0), List.of()),
+		new Scenario("around the reef", new Translation2d(2.5, 4.0), new Translation2d(6.5, 4.0), List.of()),
+		new Scenario("across the field", new Translation2d(2.0, 4.0), new Translation2d(15.0, 4.0), List.of()),
+		new Scenario("goal in the reef", new Translation2d(1.5, 1.0), new Translation2d(4.49, 4.03), List.of()),
+		new Scenario("start in the reef", new Translation2d(4.3, 4.0), new Translation2d(1.5, 7.0), List.of()),
+		new Scenario(
+			"defender in the lane", new Translation2d(1.5, 7.0), new Translation2d(5.8, 3.0),
+			List.of(box(3.0, 5.0, 0.9))),
+		new Scenario(
+			"defenders across the field", new Translation2d(2.0, 2.0), new Translation2d(15.0, 6.0),
+			List.of(box(8.0, 1.5, 0.9), box(8.5, 5.0, 0.9), box(11.0, 3.0, 0.9))),
+		new Scenario(
+			"boxed in goal", new Translation2d(2.0, 4.0), new Translation2d(13.0, 4.0),
+			List.of(box(12.0, 3.0, 0.9), box(12.0, 4.3, 0.9), box(13.3, 2.6, 0.9)))
+	);
+
+	@Test
+	void plannersDoNotRegress() throws Exception {
+		RobotConfig robotConfig = RobotConfig.fromGUISettings();
+		PathConstraints constraints = PathfindingManager.getPathfindingConstraints();
+		Map<String, Supplier<GridPathfinder>> planners = new LinkedHashMap<>();
+		planners.put("AD*", LocalADStar2::new);
+		planners.put("Lazy Theta*", LazyThetaStar::new);
+		planners.put("HPA*", HierarchicalPathfinder::new);
+		planners.put("State lattice", () -> new StateLatticePathfinder(robotConfig, constraints));
+
+		boolean timed = CHECK_TIMING || RECORD_BASELINE;
+		if (timed) {
+			runAll(planners, constraints);
+		}
+		Map<String, Result> results = runAll(planners, constraints);
+		for (int i = 1; timed && i < TIMED_RUNS; i++) {
+			for (Result result : runAll(planners, constraints).values()) {
+				Result best = results.get(result.key());
+				results.put(result.key(), new Result(
+					best.planner(), best.scenario(), best.pathLength(), Math.min(best.expansions(), result.expansions()),
+					Math.min(best.planningMillis(), result.planningMillis()), best.trajectorySeconds()));
+			}
+		}
+
+		if (RECORD_BASELINE) {
+			writeBaseline(BASELINE_FILE, results);
+			return;
+		}
+
+		assertTrue(BASELINE_FILE.exists(), "No pathfinding baseline at " + BASELINE_FILE + ", record one with -PrecordBaseline");
+		List<String> regressions = compare(readBaseline(BASELINE_FILE), results);
+		assertTrue(regressions.isEmpty(), () -> "Pathfinding regressed against " + BASELINE_FILE + ":\n" + String.join("\n", regressions));
+	}
+
+	/**
+	 * @return The results by {@link Result#key()}
+	 */
+	private static Map<String, Result> runAll(Map<String, Supplier<GridPathfinder>> planners, PathConstraints constraints)
+		throws InterruptedException {
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (var planner : planners.entrySet()) {
+			for (Scenario scenario : SCENARIOS) {
+				GridPathfinder pathfinder = planner.getValue().get();
+				try {
+					Result result = run(planner.getKey(), pathfinder, scenario, constraints);
+					results.put(result.key(), result);
+				} finally {
+					pathfinder.shutdown();
+				}
+			}
+		}
+		return results;
+	}
+
+	private static Result run(String plannerName, GridPathfinder pathfinder, Scenario scenario, PathConstraints constraints)
+		throws InterruptedException {
+		// Let the planner get its startup request out of the way
+		Thread.sleep(SETTLE_MILLIS);
+		pathfinder.getCurrentPath(constraints, new GoalEndState(0, Rotation2d.kZero));
+		long expansionsBefore = pathfinder.getExpansionCount();
+
+		long requested = System.nanoTime();
+		// All at once, so the planner doesn't search for some of them on their own and the expansions don't depend on timing
+		pathfinder.requestLock.writeLock().lock();
+		try {
+			pathfinder.setDynamicObstacles(scenario.obstacles(), scenario.start());
+			pathfinder.setStartPosition(scenario.start());
+			pathfinder.setGoalPosition(scenario.goal());
+		} finally {
+			pathfinder.requestLock.writeLock().unlock();
+		}
+
+		PathPlannerPath path = null;
+		double planningMillis = Double.NaN;
+		long lastPath = requested;
+		while ((path == null || System.nanoTime() - lastPath < SETTLE_MILLIS * 1_000_000)
+			&& System.nanoTime() - requested < TIMEOUT_MILLIS * 1_000_000) {
+			if (pathfinder.isNewPathAvailable()) {
+				PathPlannerPath newPath = pathfinder.getCurrentPath(constraints, new GoalEndState(0, Rotation2d.kZero));
+				if (newPath != null && endsNear(newPath, scenario.goal())) {
+					if (path == null) {
+						planningMillis = (System.nanoTime() - requested) / 1e6;
+					}
+					path = newPath;
+					lastPath = System.nanoTime();
+				}
+			}
+			Thread.sleep(1);
+		}
+
+		long expansions = pathfinder.getExpansionCount() - expansionsBefore;
+		if (path == null) {
+			return new Result(plannerName, scenario.name(), Double.NaN, expansions, planningMillis, Double.NaN);
+		}
+		return new Result(plannerName, scenario.name(), length(path), expansions, planningMillis, drivingTime(path, constraints));
+	}
+
+	private static boolean endsNear(PathPlannerPath path, Translation2d goal) {
+		List<PathPoint> points = path.getAllPathPoints();
+		return points.get(points.size() - 1).position.getDistance(goal) <= GOAL_TOLERANCE_METERS;
+	}
+
+	/**
+	 * @return The length through the path's waypoints, which the planners place themselves, so it doesn't change with how
+	 * PathPlanner samples the curves between them
+	 */
+	private static double length(PathPlannerPath path) {
+		List<Waypoint> waypoints = path.getWaypoints();
+		double length = 0;
+		for (int i = 1; i < waypoints.size(); i++) {
+			length += waypoints.get(i).anchor().getDistance(waypoints.get(i - 1).anchor());
+		}
+		return length;
+	}
+
+	/**
+	 * The time to drive through the path's waypoints from rest to rest, at the constraints' top speed and acceleration.
+	 * Each corner is taken as an arc that starts a third of the way along the shorter of its sides, where PathPlanner puts
+	 * the control points, at the speed the acceleration allows around it. It only depends on where the planners put the
+	 * waypoints, not on PathPlanner's trajectory generator or the robot config, so it comes out the same on any machine.
+	 */
+	private static double drivingTime(PathPlannerPath path, PathConstraints constraints) {
+		List<Waypoint> waypoints = path.getWaypoints();
+		int n = waypoints.size();
+		double maxVelocity = constraints.maxVelocityMPS();
+		double maxAcceleration = constraints.maxAccelerationMPSSq();
+		// lengths[i] is the length of the side into waypoint i
+		double[] lengths = new double[n];
+		for (int i = 1; i < n; i++) {
+			lengths[i] = waypoints.get(i).anchor().getDistance(waypoints.get(i - 1).anchor());
+		}
+
+		double[] speeds = new double[n];
+		for (int i = 1; i < n - 1; i++) {
+			Translation2d in = waypoints.get(i).anchor().minus(waypoints.get(i - 1).anchor());
+			Translation2d out = waypoints.get(i + 1).anchor().minus(waypoints.get(i).anchor());
+			double turn = Math.abs(Math.atan2(
+				in.getX() * out.getY() - in.getY() * out.getX(), in.getX() * out.getX() + in.getY() * out.getY()));
+			double radius = Math.min(lengths[i], lengths[i + 1]) / 3 / Math.tan(turn / 2);
+			speeds[i] = Math.min(maxVelocity, Math.sqrt(maxAcceleration * radius));
+		}
+		for (int i = 1; i < n; i++) {
+			speeds[i] = Math.min(speeds[i], Math.sqrt(speeds[i - 1] * speeds[i - 1] + 2 * maxAcceleration * lengths[i]));
+		}
+		for (int i = n - 2; i >= 0; i--) {
+			speeds[i] = Math.min(speeds[i], Math.sqrt(speeds[i + 1] * speeds[i + 1] + 2 * maxAcceleration * lengths[i + 1]));
+		}
+
+		double time = 0;
+		for (int i = 1; i < n; i++) {
+			double v0 = speeds[i - 1];
+			double v1 = speeds[i];
+			// Speed up, cruise if there's room to reach the top speed, then slow down for the next waypoint
+			double peak = Math.min(maxVelocity, Math.sqrt(maxAcceleration * lengths[i] + (v0 * v0 + v1 * v1) / 2));
+			if (peak <= 0) {
+				continue;
+			}
+			double rampDistance = (2 * peak * peak - v0 * v0 - v1 * v1) / (2 * maxAcceleration);
+			time += (2 * peak - v0 - v1) / maxAcceleration + Math.max(0, lengths[i] - rampDistance) / peak;
+		}
+		return time;
+	}
+
+	private static List<String> compare(Map<String, Result> baseline, Map<String, Result> results) {
+		List<String> regressions = new ArrayList<>();
+		for (Result base : baseline.values()) {
+			Result result = results.get(base.key());
+			if (result == null) {
+				regressions.add(base.key() + " is no longer run");
+				continue;
+			}
+			if (Double.isNaN(result.pathLength()) && !Double.isNaN(base.pathLength())) {
+				regressions.add(base.key() + " no longer finds a path");
+				continue;
+			}
+			checkMetric(regressions, base.key(), "path length", base.pathLength(), result.pathLength(), PATH_LENGTH_TOLERANCE, 0);
+			checkMetric(regressions, base.key(), "driving time", base.trajectorySeconds(), result.trajectorySeconds(), TRAJECTORY_TIME_TOLERANCE, 0);
+			checkMetric(regressions, base.key(), "expansions", base.expansions(), result.expansions(), EXPANSIONS_TOLERANCE, EXPANSIONS_SLACK);
+			if (CHECK_TIMING) {
+				checkMetric(
+					regressions, base.key(), "planning time", base.planningMillis(), result.planningMillis(),
+					PLANNING_TIME_TOLERANCE, PLANNING_TIME_SLACK_MILLIS);
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * Adds a regression if the value got worse than the baseline by more than the tolerance, or if either is missing
+	 */
+	private static void checkMetric(List<String> regressions, String key, String metric, double base, double value, double tolerance, double slack) {
+		if (Double.isNaN(base)) {
+			regressions.add(key + " has no " + metric + " in the baseline, record one with -PrecordBaseline");
+		} else if (Double.isNaN(value)) {
+			regressions.add(key + " " + metric + " couldn't be measured");
+		} else if (value > base * (1 + tolerance) + slack) {
+			regressions.add(key + " " + metric + " went from " + base + " to " + value);
+		}
+	}
+
+	private static void writeBaseline(File file, Map<String, Result> results) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file)) {
+			writer.println("planner,scenario,pathLength,expansions,planningMillis,trajectorySeconds");
+			for (Result result : results.values()) {
+				writer.println(
+					result.planner() + "," + result.scenario() + "," + result.pathLength() + "," + result.expansions() + ","
+						+ result.planningMillis() + "," + result.trajectorySeconds());
+			}
+		}
+	}
+
+	private static Map<String, Result> readBaseline(File file) throws IOException {
+		Map<String, Result> baseline = new LinkedHashMap<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			reader.readLine();
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split(",");
+				if (fields.length != 6) {
+					throw new IOException("Malformed baseline line in " + file + ": " + line);
+				}
+				Result result = new Result(
+					fields[0], fields[1], Double.parseDouble(fields[2]), Long.parseLong(fields[3]), Double.parseDouble(fields[4]),
+					Double.parseDouble(fields[5]));
+				baseline.put(result.key(), result);
+			}
+		}
+		return baseline;
+	}
+
+	/**
+	 * @return A square obstacle, given its bottom left corner
+	 */
+	private static Pair<Translation2d, Translation2d> box(double x, double y, double size) {
+		return Pair.of(new Translation2d(x, y), new Translation2d(x + size, y + size));
+	}
+
+	/**
+	 * @param obstacles Dynamic obstacles, as opposite corners of their bounding boxes
+	 */
+	private record Scenario(String name, Translation2d start, Translation2d goal, List<Pair<Translation2d, Translation2d>> obstacles) {
+	}
+
+	/**
+	 * @param pathLength        The length through the final path's waypoints in meters, or NaN if there was none
+	 * @param planningMillis    The time from the request to the first path, or NaN if there was none
+	 * @param trajectorySeconds The time to drive the final path (see {@link #drivingTime}), or NaN if there was none
+	 */
+	private record Result(String planner, String scenario, double pathLength, long expansions, double planningMillis, double trajectorySeconds) {
+		String key() {
+			return planner + "," + scenario;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder.GridPosition;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs the grid pathfinders' planning rounds on the test thread instead of their planning threads, so what they plan
+ * doesn't depend on timing
+ */
+final class Planning {
+	private static final int MAX_ROUNDS = 100;
+
+	private Planning() {
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+
+	/**
+	 * @return The planner, with its planning thread stopped
+	 */
+	static <T extends GridPathfinder> T stopped(Supplier<T> planner) {
+		T pathfinder = planner.get();
+		pathfinder.shutdown();
+		return pathfinder;
+	}
+
+	/**
+	 * Plans until the planner has nothing left to do, like its planning thread would
+	 */
+	static void untilIdle(GridPathfinder pathfinder) {
+		for (int i = 0; i < MAX_ROUNDS; i++) {
+			if (!pathfinder.plan()) {
+				return;
+			}
+		}
+		throw new AssertionError("The planner was still planning after " + MAX_ROUNDS + " rounds");
+	}
+
+	/**
+	 * Plans from a start to a goal around some dynamic obstacles until the planner is idle
+	 *
+	 * @return The nodes of the path it ends up with
+	 */
+	static List<GridPosition> plan(
+		GridPathfinder pathfinder, Translation2d start, Translation2d goal, List<Pair<Translation2d, Translation2d>> obstacles) {
+		pathfinder.setDynamicObstacles(obstacles, start);
+		pathfinder.setStartPosition(start);
+		pathfinder.setGoalPosition(goal);
+		untilIdle(pathfinder);
+		return path(pathfinder);
+	}
+
+	/**
+	 * @return Every node of the planner's current path
+	 */
+	static List<GridPosition> path(GridPathfinder pathfinder) {
+		return new ArrayList<>(pathfinder.currentPathFull);
+	}
+
+	/**
+	 * @return The cost of a path around the planner's current obstacles, infinite if a segment is blocked
+	 */
+	static double cost(GridPathfinder pathfinder, List<GridPosition> path) {
+		double total = 0;
+		for (int i = 1; i < path.size(); i++) {
+			total += pathfinder.lineCost(pathfinder.index(path.get(i - 1)), pathfinder.index(path.get(i)), pathfinder.requestObstacles);
+		}
+		return total;
+	}
+
+	/**
+	 * @return The length of a path in meters
+	 */
+	static double length(GridPathfinder pathfinder, List<GridPosition> path) {
+		double total = 0;
+		for (int i = 1; i < path.size(); i++) {
+			total += pathfinder.gridPosToTranslation2d(path.get(i)).getDistance(pathfinder.gridPosToTranslation2d(path.get(i - 1)));
+		}
+		return total;
+	}
+
+	static void assertClear(GridPathfinder pathfinder, List<GridPosition> path) {
+		for (GridPosition node : path) {
+			assertFalse(pathfinder.requestObstacles.isObstacle(pathfinder.index(node)), "The path runs through " + node);
+		}
+	}
+
+	/**
+	 * @return A square obstacle, given its center
+	 */
+	static Pair<Translation2d, Translation2d> box(Translation2d center, double size) {
+		Translation2d corner = new Translation2d(size / 2, size / 2);
+		return Pair.of(center.minus(corner), center.plus(corner));
+	}
+}
@@ -0,0 +1,92 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.path.PathConstraints;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.commands.drive.pathfinding.pathfinders.GridPathfinder.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StateLatticePathfinderTest {
+	private static final double EPSILON = 1e-9;
+	private static final PathConstraints CONSTRAINTS = new PathConstraints(3, 2, 540, 540, 12);
+	private static final Translation2d START = new Translation2d(2.5, 2.0);
+	/**
+	 * Straight up the field from the start
+	 */
+	private static final Translation2d GOAL = new Translation2d(2.5, 6.0);
+
+	private static StateLatticePathfinder planner() {
+		return Planning.stopped(() -> new StateLatticePathfinder(null, CONSTRAINTS));
+	}
+
+	/**
+	 * Plans to the goal, starting with the given velocity
+	 *
+	 * @return The path's vertices
+	 */
+	private static List<GridPosition> planFrom(StateLatticePathfinder pathfinder, Translation2d velocity) {
+		pathfinder.setStartState(START, velocity);
+		pathfinder.setGoalPosition(GOAL);
+		Planning.untilIdle(pathfinder);
+		List<GridPosition> path = Planning.path(pathfinder);
+		assertEquals(pathfinder.requestGoal, path.get(path.size() - 1));
+		return path;
+	}
+
+	private static Rotation2d direction(StateLatticePathfinder pathfinder, GridPosition from, GridPosition to) {
+		return pathfinder.gridPosToTranslation2d(to).minus(pathfinder.gridPosToTranslation2d(from)).getAngle();
+	}
+
+	/**
+	 * @return How far the path goes in its first direction before it turns, in meters
+	 */
+	private static double firstTurnDistance(StateLatticePathfinder pathfinder, List<GridPosition> path) {
+		Rotation2d first = direction(pathfinder, path.get(0), path.get(1));
+		int turn = 1;
+		while (turn < path.size() - 1 && Math.abs(direction(pathfinder, path.get(turn), path.get(turn + 1)).minus(first).getRadians()) < EPSILON) {
+			turn++;
+		}
+		return pathfinder.gridPosToTranslation2d(path.get(turn)).getDistance(pathfinder.gridPosToTranslation2d(path.get(0)));
+	}
+
+	@Test
+	void setsOffTowardTheGoalFromRest() {
+		StateLatticePathfinder pathfinder = planner();
+		List<GridPosition> path = planFrom(pathfinder, Translation2d.kZero);
+
+		double offCourse = direction(pathfinder, path.get(0), path.get(1)).minus(Rotation2d.kCCW_90deg).getDegrees();
+		assertTrue(Math.abs(offCourse) < 45, "Set off " + offCourse + " degrees away from the goal");
+	}
+
+	@Test
+	void keepsGoingTheWayItIsMovingUntilItCanTurn() {
+		StateLatticePathfinder fast = planner();
+		List<GridPosition> fastPath = planFrom(fast, new Translation2d(CONSTRAINTS.maxVelocityMPS(), 0));
+		StateLatticePathfinder slow = planner();
+		List<GridPosition> slowPath = planFrom(slow, new Translation2d(CONSTRAINTS.maxVelocityMPS() / 2, 0));
+
+		// Moving along +x with the goal along +y, neither can set off toward it
+		assertEquals(0, direction(fast, fastPath.get(0), fastPath.get(1)).getDegrees(), EPSILON);
+		assertEquals(0, direction(slow, slowPath.get(0), slowPath.get(1)).getDegrees(), EPSILON);
+		// At full speed it has to slow down before it can turn at all
+		assertTrue(firstTurnDistance(fast, fastPath) > firstTurnDistance(slow, slowPath),
+			"Turned " + firstTurnDistance(fast, fastPath) + " m in at full speed, " + firstTurnDistance(slow, slowPath) + " m in at half speed");
+	}
+
+	@Test
+	void arrivesAlongTheApproachHeading() {
+		StateLatticePathfinder pathfinder = planner();
+		pathfinder.setStartPosition(START);
+		pathfinder.setGoalState(GOAL, Rotation2d.kZero, 2);
+		Planning.untilIdle(pathfinder);
+		List<GridPosition> path = Planning.path(pathfinder);
+
+		assertTrue(pathfinder.matchesGoalState());
+		assertEquals(pathfinder.requestGoal, path.get(path.size() - 1));
+		assertEquals(0, direction(pathfinder, path.get(path.size() - 2), path.get(path.size() - 1)).getDegrees(), EPSILON);
+	}
+}